@@ -0,0 +1,101 @@
+package ex5.context;
+
+import ex5.utils.Constants;
+
+import java.util.Arrays;
+
+/**
+ * The CallShapeMemo class remembers the method call shapes that were already validated in a file.
+ * A call shape is a method ID together with a vector of the kinds of its arguments, packed into a long by the
+ * method call validator. Two calls of the same shape pass or fail the signature checks the same way, so a
+ * shape that passed once only needs the checks that depend on the call site, such as whether its variable
+ * arguments are initialized.
+ * The memo is an open-addressing hash set over two parallel arrays, so a lookup allocates nothing.
+ */
+public class CallShapeMemo {
+
+    private static final int EMPTY = 0; // stored method IDs are the ID + 1
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private int[] methodIds; // slot -> method ID + 1, EMPTY if the slot is free
+    private long[] shapes; // slot -> argument kind vector
+    private int size; // shapes in the memo
+
+    /**
+     * Constructs an empty CallShapeMemo.
+     */
+    public CallShapeMemo() {
+        this.methodIds = new int[Constants.INITIAL_CALL_SHAPE_CAPACITY];
+        this.shapes = new long[Constants.INITIAL_CALL_SHAPE_CAPACITY];
+    }
+
+    /**
+     * Checks if a call shape was already validated.
+     *
+     * @param methodId the ID of the called method.
+     * @param shape    the argument kind vector of the call.
+     * @return true if the shape was added before, false otherwise.
+     */
+    public boolean contains(int methodId, long shape) {
+        int mask = methodIds.length - 1;
+        for (int slot = slot(methodId, shape, mask); methodIds[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (methodIds[slot] == methodId + 1 && shapes[slot] == shape) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records a call shape that passed validation.
+     *
+     * @param methodId the ID of the called method.
+     * @param shape    the argument kind vector of the call.
+     */
+    public void add(int methodId, long shape) {
+        if (contains(methodId, shape)) {
+            return;
+        }
+        if (2 * (size + 1) > methodIds.length) { // keep the load factor under a half
+            grow();
+        }
+        insert(methodId + 1, shape);
+        size++;
+    }
+
+    /**
+     * Forgets every call shape, keeping the arrays for the next file.
+     */
+    public void clear() {
+        Arrays.fill(methodIds, EMPTY);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldIds = methodIds;
+        long[] oldShapes = shapes;
+        methodIds = new int[oldIds.length * 2];
+        shapes = new long[oldShapes.length * 2];
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != EMPTY) {
+                insert(oldIds[i], oldShapes[i]);
+            }
+        }
+    }
+
+    // stores an entry in the first free slot of its probe sequence
+    private void insert(int storedId, long shape) {
+        int mask = methodIds.length - 1;
+        int slot = slot(storedId - 1, shape, mask);
+        while (methodIds[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        methodIds[slot] = storedId;
+        shapes[slot] = shape;
+    }
+
+    private static int slot(int methodId, long shape, int mask) {
+        long hash = (shape ^ ((long) methodId << Integer.SIZE)) * HASH_MULTIPLIER;
+        return (int) (hash >>> Integer.SIZE) & mask;
+    }
+}
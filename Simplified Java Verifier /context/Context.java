@@ -1,43 +1,203 @@
 package ex5.context;
 
+import ex5.utils.Constants;
 import ex5.utils.ErrorMessages;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Stack;
 
 import static ex5.utils.ErrorMessages.METHOD_NOT_DECLARED;
 
 /**
  * The Context class represents the current state of the code including all the scopes and the variables in
  * each scope and it's state.
+ * Variables and methods are identified by the IDs the context's identifiers assign to their names, so the
+ * symbol and method tables are arrays indexed by ID.
+ * At the end of the first pass the global variables and the methods are frozen into a GlobalTable, and the
+ * symbol table only holds the method scopes of the second pass on top of it.
  */
 public class Context {
 
-    private final Map<String, MethodInfo> methods; // Method names -> Signatures
-    private final Stack<Scope> scopeStack; // Stack of active scopes
+    private final Identifiers identifiers; // Names -> IDs
+    private MethodInfo[] methods; // Method IDs -> Signatures
+    private final SymbolTable symbols; // Variables of all active scopes
+    private GlobalTable globals; // Frozen global variables and methods, null during the first pass
+    private final CallShapeMemo callShapes; // Method call shapes already validated
+    private final NameFilter declaredNames; // Bloom filter of the variable names declared in this file
+    private final VariableHandle undeclared; // Handle of every name the filter rejects
+    private long filteredLookups; // Lookups the filter answered, over every file
+    private boolean memoizesCalls = true; // Whether method calls go through the call shape memo
 
     /**
      * Initializes the Context with an empty set of global variables, methods, and a global scope.
      */
     public Context() {
-        this.methods = new HashMap<>(); // Method names -> Signature
-        this.scopeStack = new Stack<>(); // Stack of active scopes
-        this.scopeStack.push(new Scope(null)); // Start with global scope
+        this.identifiers = new Identifiers();
+        this.methods = new MethodInfo[Constants.INITIAL_IDENTIFIER_CAPACITY]; // Method IDs -> Signature
+        this.symbols = new SymbolTable(identifiers); // Start with global scope
+        this.callShapes = new CallShapeMemo();
+        this.declaredNames = new NameFilter();
+        this.undeclared = new VariableHandle(symbols, Identifiers.NO_ID, SymbolTable.NONE, GlobalTable.ABSENT);
+    }
+
+    /**
+     * Constructs a Context for another thread over the frozen globals and methods of the given one.
+     *
+     * @param frozen a context whose globals were frozen, at the global scope.
+     */
+    private Context(Context frozen) {
+        this.identifiers = new Identifiers(frozen.identifiers);
+        this.methods = frozen.methods;
+        this.symbols = new SymbolTable(identifiers, frozen.symbols);
+        this.globals = frozen.globals;
+        this.callShapes = new CallShapeMemo();
+        this.declaredNames = new NameFilter(frozen.declaredNames);
+        this.undeclared = new VariableHandle(symbols, Identifiers.NO_ID, SymbolTable.NONE, GlobalTable.ABSENT);
+        this.memoizesCalls = frozen.memoizesCalls;
+    }
+
+    /**
+     * Forks a Context that verifies method bodies on another thread.
+     * The fork shares the frozen GlobalTable and copies the rest, so both can then declare and assign
+     * variables in their own method scopes without seeing each other's. Must be called after freezeGlobals,
+     * at the global scope.
+     *
+     * @return a new context over the same frozen globals.
+     */
+    public Context fork() {
+        return new Context(this);
+    }
+
+    /**
+     * Adds the lookups the Bloom filter of a fork answered to those of this context.
+     *
+     * @param fork a context returned by fork.
+     */
+    public void addFilteredLookups(Context fork) {
+        filteredLookups += fork.filteredLookups;
+    }
+
+    /**
+     * Closes every open scope, undoing their variables and assignments, as after a method body that failed
+     * verification.
+     */
+    public void popToGlobalScope() {
+        while (!isInGlobalScope()) {
+            symbols.popScope();
+        }
+    }
+
+    /**
+     * Resets the Context to its initial state, so it can verify another file.
+     * The tables keep their capacity, so verifying file after file allocates almost nothing.
+     */
+    public void reset() {
+        symbols.clear();
+        Arrays.fill(methods, 0, Math.min(methods.length, identifiers.size()), null);
+        identifiers.clear();
+        globals = null;
+        callShapes.clear();
+        declaredNames.clear();
+        memoizesCalls = true;
+    }
+
+    /**
+     * Makes room in the tables for the variables the second pass will declare, as estimated by the first.
+     * Growing the tables once up front replaces the repeated doubling a large file would otherwise cause.
+     *
+     * @param localCount the number of local variables and parameters expected.
+     * @param maxDepth   the depth of the deepest scope in the file.
+     */
+    public void presize(int localCount, int maxDepth) {
+        int idCount = identifiers.size() + localCount;
+        identifiers.ensureCapacity(idCount);
+        symbols.ensureCapacity(idCount, localCount, maxDepth);
+        rebuildDeclaredNames(idCount);
+    }
+
+    /**
+     * Chooses whether method calls are memoized by their shape, which only pays off for files with many calls.
+     *
+     * @param memoizesCalls true to memoize call shapes, false to validate every call in full.
+     */
+    public void setMemoizesCalls(boolean memoizesCalls) {
+        this.memoizesCalls = memoizesCalls;
+    }
+
+    /**
+     * Freezes the global variables and the method signatures declared so far into a read-only GlobalTable.
+     * Must be called at the global scope, once the first pass is done. The global variables then move out of
+     * the symbol table, and a method that initializes one does so in its own scopes.
+     */
+    public void freezeGlobals() {
+        int idCount = identifiers.size();
+        MethodInfo[] frozenMethods = Arrays.copyOf(methods, Math.min(methods.length, idCount));
+        globals = new GlobalTable(symbols.takeGlobals(idCount), frozenMethods);
+    }
+
+    /**
+     * Gets the frozen global variables and methods.
+     *
+     * @return the frozen GlobalTable, or null before freezeGlobals is called.
+     */
+    public GlobalTable getGlobals() {
+        return globals;
+    }
+
+    /**
+     * Gets the memo of the method call shapes already validated in this file.
+     *
+     * @return the call shape memo, or null if calls are not memoized in this file.
+     */
+    public CallShapeMemo getCallShapes() {
+        return memoizesCalls ? callShapes : null;
+    }
+
+    /**
+     * Gets the ID of a name, assigning the next ID if it was not seen before.
+     *
+     * @param name The name of a variable or a method.
+     * @return The ID of the name.
+     */
+    public int intern(CharSequence name) {
+        return identifiers.intern(name);
+    }
+
+    /**
+     * Gets the ID of the name in a span of a text, assigning the next ID if it was not seen before.
+     *
+     * @param text  The text holding the name.
+     * @param start The start of the name.
+     * @param end   The end of the name.
+     * @return The ID of the name.
+     */
+    public int intern(CharSequence text, int start, int end) {
+        return identifiers.intern(text, start, end);
+    }
+
+    /**
+     * Gets the name of an ID.
+     *
+     * @param id The ID.
+     * @return The name.
+     */
+    public String getName(int id) {
+        return identifiers.getName(id);
     }
 
 
     /**
      * Adds a method to the context.
      *
-     * @param name        The name of the method.
+     * @param id          The ID of the method's name.
      * @param methodInfo  The method's signature and details.
      * return statement in it.
      */
-    public void addMethod(String name, MethodInfo methodInfo) {
-
-        methods.put(name, methodInfo);
+    public void addMethod(int id, MethodInfo methodInfo) {
+        if (id >= methods.length) {
+            methods = Arrays.copyOf(methods, Math.max(methods.length * 2, id + 1));
+        }
+        methods[id] = methodInfo;
     }
     /**
      * Pushes a new scope for a method and initializes it with the given parameters.
@@ -53,9 +213,8 @@ public class Context {
 
         // Add parameters as variables in the new scope
         for (Parameter parameter : parameters) {
-            VariableInfo variableInfo = new VariableInfo(parameter.isFinal(), parameter.getType(),
-                    false);
-            addVariable(parameter.getName(), variableInfo, true, lineNumber);
+            int variableInfo = VariableInfo.pack(parameter.isFinal(), parameter.getType(), false);
+            addVariable(parameter.getId(), variableInfo, true, lineNumber);
         }
     }
 
@@ -64,7 +223,7 @@ public class Context {
      * Pushes a new scope onto the stack.
      */
     public void pushScope() {
-        scopeStack.push(new Scope(scopeStack.peek())); // New scope with current scope as parent
+        symbols.pushScope();
     }
 
     /**
@@ -73,8 +232,8 @@ public class Context {
      * @throws IllegalStateException If attempting to pop the global scope.
      */
     public void popScope() {
-        if (scopeStack.size() > 1) { // Ensure we never pop the global scope
-            scopeStack.pop();
+        if (!isInGlobalScope()) { // Ensure we never pop the global scope
+            symbols.popScope();
         } else {
             throw new IllegalStateException(ErrorMessages.CANNOT_POP_GLOBAL_SCOPE);
         }
@@ -83,108 +242,126 @@ public class Context {
     /**
      * Adds a variable to the current scope.
      *
-     * @param name          The name of the variable.
-     * @param info          The variable's information (type, final, etc.).
+     * @param id            The ID of the variable.
+     * @param info          The variable's packed information (type, final, etc.).
      * @param isInitialized Whether the variable is initialized.
      * @param lineNumber    The line number where the variable is declared.
      * @throws VariableAlreadyExistsException If the variable already exists in the scope.
      */
-    public void addVariable(String name, VariableInfo info, boolean isInitialized, int lineNumber) throws VariableAlreadyExistsException
+    public void addVariable(int id, int info, boolean isInitialized, int lineNumber) throws VariableAlreadyExistsException
     {
         if (isInitialized) {
-            scopeStack.peek().addInitializedVariable(name, info, lineNumber);
+            symbols.addInitializedVariable(id, info, lineNumber);
         } else {
-            scopeStack.peek().addUninitializedVariable(name, info);
+            symbols.addUninitializedVariable(id, info);
+        }
+        declaredNames.add(identifiers.getHash(id));
+        if (declaredNames.isCrowded()) {
+            // room for half the identifiers too, so the scans stay linear in the number of declarations
+            rebuildDeclaredNames(identifiers.size() / 2);
         }
     }
     /**
-     * Adds a variable specifically to the current method scope.
+     * Retrieves information about a variable by its ID.
      *
-     * @param name       The name of the variable.
-     * @param info       The variable's information (type, final, etc.).
-     * @param lineNumber The line number where the variable is declared.
-     * @throws VariableAlreadyExistsException If the variable already exists in the scope.
+     * @param id The ID of the variable.
+     * @return The variable's packed information.
      */
-    public void addVariableToMethodScope(String name, VariableInfo info, int lineNumber) throws VariableAlreadyExistsException
-            {
-        scopeStack.peek().addVariableToMethodScope(name, info, lineNumber);
+    public int getVariableInfo(int id) {
+        return resolve(id).getInfo();
     }
+
     /**
-     * Retrieves information about a variable by its name.
+     * Resolves a variable once in the current scope.
+     * The returned handle gives the type, finality, globality and initialization of the innermost
+     * declaration without further lookups, and stays valid until the next scope is pushed or popped.
      *
-     * @param name The name of the variable.
-     * @return The variable's information.
+     * @param id The ID of the variable.
+     * @return A handle to the innermost declaration, which may be undeclared.
      */
-    public VariableInfo getVariableInfo(String name) {
-        return scopeStack.peek().getVariableInfo(name);
+    public VariableHandle resolve(int id) {
+        int globalInfo = globals == null ? GlobalTable.ABSENT : globals.getInfo(id);
+        return new VariableHandle(symbols, id, symbols.find(id), globalInfo);
     }
 
     /**
-     * Checks if a variable is global.
+     * Resolves the variable named by a span of a text once in the current scope.
+     * A name that was never declared in the file is usually rejected by a Bloom filter, without interning it
+     * or looking it up.
      *
-     * @param name The name of the variable.
-     * @return true if the variable is global, false otherwise.
+     * @param text  The text holding the name.
+     * @param start The start of the name.
+     * @param end   The end of the name.
+     * @return A handle to the innermost declaration, which may be undeclared. The handle of a name the
+     * filter rejected has no ID.
      */
-    public boolean isGlobalVariable(String name) {
-        return scopeStack.peek().isGlobal(name);
+    public VariableHandle resolve(CharSequence text, int start, int end) {
+        int hash = Identifiers.hash(text, start, end);
+        if (!declaredNames.mightContain(hash)) {
+            filteredLookups++;
+            return undeclared;
+        }
+        return resolve(identifiers.intern(text, start, end, hash));
     }
+
     /**
-     * Moves a variable from uninitialized to initialized in the current scope.
+     * Gets the number of lookups of undeclared names that the Bloom filter answered on its own.
+     * The count is kept over every file the context verified.
      *
-     * @param name The name of the variable to move.
+     * @return the number of lookups the filter short-circuited.
      */
-    public void moveVariableToInitialized(String name) {
-        scopeStack.peek().moveVariableToInitialized(name);
+    public long getFilteredLookups() {
+        return filteredLookups;
     }
 
     /**
      * Checks if a variable is declared in the current or any parent scope.
      *
-     * @param name The name of the variable.
+     * @param id The ID of the variable.
      * @return true if the variable is declared, false otherwise.
      */
-    public boolean isVariableDeclared(String name) {
-        return scopeStack.peek().isDeclared(name);
+    public boolean isVariableDeclared(int id) {
+        return resolve(id).isDeclared();
     }
     /**
      * Checks if a variable is declared in the current scope.
      *
-     * @param name The name of the variable.
+     * @param id The ID of the variable.
      * @return true if the variable is declared in the current scope, false otherwise.
      */
-    public boolean isVariableDeclaredOnThisScope(String name) {
-        return scopeStack.peek().isVariableDeclaredOnThisScope(name);
+    public boolean isVariableDeclaredOnThisScope(int id) {
+        return resolve(id).isDeclaredOnThisScope();
     }
 
     /**
      * Retrieves the type of a variable.
      *
-     * @param name The name of the variable.
+     * @param id The ID of the variable.
      * @return The variable's type.
      * @throws IllegalArgumentException If the variable does not exist.
      */
-    public VariableType getVariableType(String name) throws IllegalArgumentException {
-        return scopeStack.peek().getType(name);
+    public VariableType getVariableType(int id) throws IllegalArgumentException {
+        return resolve(id).getType();
     }
     /**
      * Checks if a variable is marked as final.
      *
-     * @param name The name of the variable.
+     * @param id The ID of the variable.
      * @return true if the variable is final, false otherwise.
      */
-    public boolean getVariableFinal(String name){
-        return scopeStack.peek().getIsFinal(name);
+    public boolean getVariableFinal(int id){
+        return resolve(id).isFinal();
     }
 
 
     /**
      * Checks if a variable is uninitialized in the current scope.
      *
-     * @param name The name of the variable.
+     * @param id The ID of the variable.
      * @return true if the variable is uninitialized, false otherwise.
      */
-    public boolean isVariableUninitialized(String name) {
-        return scopeStack.peek().isVariableUninitialized(name);
+    public boolean isVariableUninitialized(int id) {
+        return resolve(id).isUninitialized();
     }
     /**
      * Checks if the current scope is the global scope.
@@ -192,7 +369,7 @@ public class Context {
      * @return true if in the global scope, false otherwise.
      */
     public boolean isInGlobalScope() {
-        return scopeStack.size() == 1;
+        return symbols.getDepth() == Constants.GLOBAL_SCOPE_DEPTH;
     }
 
     /**
@@ -201,17 +378,46 @@ public class Context {
      * @return true if in a method scope, false otherwise.
      */
     public boolean isInMethodScope() {
-        return scopeStack.size() == 2;
+        return symbols.getDepth() == Constants.METHOD_SCOPE_DEPTH;
     }
 
 
 
-    public MethodInfo getMethod(String methodName, int lineNumber) throws MethodCallException {
-        MethodInfo methodInfo = this.methods.get(methodName);
+    /**
+     * Retrieves a declared method.
+     *
+     * @param id         The ID of the method's name.
+     * @param lineNumber The line number of the call, for error reporting.
+     * @return The method's signature and details.
+     * @throws MethodCallException If no method with this name is declared.
+     */
+    public MethodInfo getMethod(int id, int lineNumber) throws MethodCallException {
+        MethodInfo methodInfo;
+        if (globals != null) {
+            methodInfo = globals.getMethod(id);
+        } else {
+            methodInfo = id < methods.length ? methods[id] : null;
+        }
         if (methodInfo == null) {
-            throw new MethodCallException(lineNumber, methodName + METHOD_NOT_DECLARED);
+            throw new MethodCallException(lineNumber, identifiers.getName(id) + METHOD_NOT_DECLARED);
         }
         return methodInfo;
     }
 
+    // refills the filter with the names that are still declared, dropping those of closed scopes
+    private void rebuildDeclaredNames(int roomFor) {
+        int count = identifiers.size();
+        int declared = 0;
+        for (int id = 0; id < count; id++) {
+            if (isVariableDeclared(id)) {
+                declared++;
+            }
+        }
+        declaredNames.rebuild(Math.max(declared, roomFor));
+        for (int id = 0; id < count; id++) {
+            if (isVariableDeclared(id)) {
+                declaredNames.add(identifiers.getHash(id));
+            }
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package ex5.context;
+
+/**
+ * The GlobalTable class is the read-only view of the global scope and the method signatures of an s-Java
+ * file, frozen at the end of the first pass.
+ * Both are flat arrays indexed by identifier ID and are never written after construction, so one table can be
+ * read by any number of threads without locks. Changes made inside a method, such as a global initialized
+ * by an assignment, go to the symbol table that overlays it.
+ */
+public class GlobalTable {
+
+    /**
+     * The packed information of an ID that is not a global variable.
+     */
+    public static final int ABSENT = -1;
+
+    private final int[] infos; // Variable ID -> packed VariableInfo of the global, ABSENT if none
+    private final MethodInfo[] methods; // Method ID -> Signature, null if none
+
+    /**
+     * Constructs a GlobalTable over the given arrays, which must not be changed afterwards.
+     *
+     * @param infos   the packed information of the global variables, by ID.
+     * @param methods the signatures of the methods, by ID.
+     */
+    GlobalTable(int[] infos, MethodInfo[] methods) {
+        this.infos = infos;
+        this.methods = methods;
+    }
+
+    /**
+     * Retrieves the packed information of a global variable.
+     *
+     * @param id The ID of the variable.
+     * @return The variable's packed information, or ABSENT if it is not a global variable.
+     */
+    public int getInfo(int id) {
+        return id < infos.length ? infos[id] : ABSENT;
+    }
+
+    /**
+     * Retrieves the signature of a method.
+     *
+     * @param id The ID of the method's name.
+     * @return The method's signature, or null if no such method is declared.
+     */
+    public MethodInfo getMethod(int id) {
+        return id < methods.length ? methods[id] : null;
+    }
+}
@@ -0,0 +1,194 @@
+package ex5.context;
+
+import ex5.utils.Constants;
+
+import java.util.Arrays;
+
+/**
+ * The Identifiers class interns the identifiers of an s-Java file into dense int IDs, starting at 0.
+ * An identifier is looked up straight from a span of a line, so no String is created for a name that was
+ * already seen, and the symbol and method tables can be arrays indexed by ID instead of maps keyed by String.
+ */
+public class Identifiers {
+
+    /**
+     * The ID of a name that was not interned.
+     */
+    public static final int NO_ID = -1;
+
+    private String[] names; // ID -> identifier
+    private int[] hashes; // ID -> hash of the identifier
+    private int[] slots; // open-addressing table of ID + 1, 0 for an empty slot
+    private int count;
+
+    /**
+     * Constructs an empty Identifiers.
+     */
+    public Identifiers() {
+        this.names = new String[Constants.INITIAL_IDENTIFIER_CAPACITY];
+        this.hashes = new int[Constants.INITIAL_IDENTIFIER_CAPACITY];
+        this.slots = new int[Constants.INITIAL_IDENTIFIER_CAPACITY * 2];
+    }
+
+    /**
+     * Constructs a copy of the given Identifiers, which then assigns IDs independently of it.
+     *
+     * @param other the identifiers to copy.
+     */
+    Identifiers(Identifiers other) {
+        this.names = other.names.clone();
+        this.hashes = other.hashes.clone();
+        this.slots = other.slots.clone();
+        this.count = other.count;
+    }
+
+    /**
+     * Gets the ID of an identifier, assigning the next ID if it was not seen before.
+     *
+     * @param name the identifier.
+     * @return the ID of the identifier.
+     */
+    public int intern(CharSequence name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Gets the ID of the identifier in a span of a text, assigning the next ID if it was not seen before.
+     *
+     * @param text  the text holding the identifier.
+     * @param start the start of the identifier.
+     * @param end   the end of the identifier.
+     * @return the ID of the identifier.
+     */
+    public int intern(CharSequence text, int start, int end) {
+        return intern(text, start, end, hash(text, start, end));
+    }
+
+    /**
+     * Gets the ID of the identifier in a span of a text whose hash is already known.
+     *
+     * @param text  the text holding the identifier.
+     * @param start the start of the identifier.
+     * @param end   the end of the identifier.
+     * @param hash  the hash of the identifier, as returned by hash.
+     * @return the ID of the identifier.
+     */
+    int intern(CharSequence text, int start, int end, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && isSame(names[id], text, start, end)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = count;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        names[id] = text.subSequence(start, end).toString();
+        hashes[id] = hash;
+        count++;
+        if (slots.length < names.length * 2) {
+            rehash(names.length * 2); // places the new ID as well
+        } else {
+            slots[slot] = id + 1;
+        }
+        return id;
+    }
+
+    /**
+     * Gets the identifier of an ID.
+     *
+     * @param id the ID.
+     * @return the identifier.
+     */
+    public String getName(int id) {
+        return names[id];
+    }
+
+    /**
+     * Gets the hash of the identifier of an ID.
+     *
+     * @param id the ID.
+     * @return the hash of the identifier.
+     */
+    int getHash(int id) {
+        return hashes[id];
+    }
+
+    /**
+     * Gets the number of interned identifiers, which is also the next ID.
+     *
+     * @return the number of identifiers.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Makes room for the given number of identifiers, so interning up to that many does not grow the tables.
+     *
+     * @param capacity the number of identifiers to make room for.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= names.length) {
+            return;
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1; // the tables stay a power of two
+        names = Arrays.copyOf(names, size);
+        hashes = Arrays.copyOf(hashes, size);
+        rehash(size * 2);
+    }
+
+    /**
+     * Forgets every identifier, keeping the tables for the next file.
+     */
+    public void clear() {
+        Arrays.fill(names, 0, count, null);
+        Arrays.fill(slots, 0);
+        count = 0;
+    }
+
+    private void rehash(int size) {
+        slots = new int[size];
+        int mask = size - 1;
+        for (int id = 0; id < count; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Hashes the identifier in a span of a text.
+     *
+     * @param text  the text holding the identifier.
+     * @param start the start of the identifier.
+     * @param end   the end of the identifier.
+     * @return the hash of the identifier.
+     */
+    static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean isSame(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != text.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
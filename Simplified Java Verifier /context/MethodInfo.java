@@ -1,15 +1,16 @@
 package ex5.context;
 
 import java.util.List;
-import java.util.Set;
 
 /**
  * Represents information about a method in s-Java.
+ * A MethodInfo is immutable once constructed, so the frozen method table can hand it to any reader.
  */
 public class MethodInfo {
 
     private final String name; // Method name
     private final List<Parameter> parameters; // List of parameters (name and type)
+    private final VariableType[] parameterTypes; // Types of the parameters, in order
 
     /**
      * Constructs a MethodInfo object.
@@ -19,7 +20,11 @@ public class MethodInfo {
      */
     public MethodInfo(String name, List<Parameter> parameters) {
         this.name = name;
-        this.parameters = parameters;
+        this.parameters = List.copyOf(parameters);
+        this.parameterTypes = new VariableType[parameters.size()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterTypes[i] = parameters.get(i).getType();
+        }
     }
 
     /**
@@ -43,24 +48,12 @@ public class MethodInfo {
 
     /**
      * Gets the types of all parameters in the method.
+     * The array is built once with the method and shared by every call, so it must not be modified.
      *
-     * @return a list of parameter types.
+     * @return the parameter types, in order.
      */
-    public List<VariableType> getParameterTypes() {
-        return parameters.stream()
-                .map(Parameter::getType)
-                .toList();
-    }
-
-    /**
-     * Gets the names of all parameters in the method.
-     *
-     * @return a list of parameter names.
-     */
-    public List<String> getParameterNames() {
-        return parameters.stream()
-                .map(Parameter::getName)
-                .toList();
+    public VariableType[] getParameterTypes() {
+        return parameterTypes;
     }
 
     @Override
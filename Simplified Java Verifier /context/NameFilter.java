@@ -0,0 +1,115 @@
+package ex5.context;
+
+import ex5.utils.Constants;
+
+import java.util.Arrays;
+
+/**
+ * The NameFilter class is a Bloom filter over the hashes of the variable names declared in a file.
+ * It answers "might this name be declared?" with a couple of bit probes. A negative answer is certain, so a
+ * name the filter rejects is known to be undeclared without interning it or resolving it.
+ * Names are never removed, so a name whose scope was closed only costs a false positive. When too many names
+ * were added for the size of the filter, the owner rebuilds it from the names that are still declared.
+ */
+public class NameFilter {
+
+    private static final int PROBES = 2;
+    private static final int WORD_SHIFT = 6; // bit >> WORD_SHIFT is the word of the bit
+    private static final int PROBE_MULTIPLIER = 0x9E3779B9;
+
+    private long[] bits;
+    private int mask; // number of bits - 1
+    private int population; // names added since the last rebuild, counting repeats
+
+    /**
+     * Constructs an empty NameFilter.
+     */
+    public NameFilter() {
+        this.bits = new long[Constants.INITIAL_NAME_FILTER_BITS >> WORD_SHIFT];
+        this.mask = Constants.INITIAL_NAME_FILTER_BITS - 1;
+    }
+
+    /**
+     * Constructs a copy of the given NameFilter.
+     *
+     * @param other the filter to copy.
+     */
+    NameFilter(NameFilter other) {
+        this.bits = other.bits.clone();
+        this.mask = other.mask;
+        this.population = other.population;
+    }
+
+    /**
+     * Adds the hash of a declared name.
+     *
+     * @param hash the hash of the name, as computed by Identifiers.
+     */
+    public void add(int hash) {
+        int step = step(hash);
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (hash + i * step) & mask;
+            bits[bit >> WORD_SHIFT] |= 1L << bit;
+        }
+        population++;
+    }
+
+    /**
+     * Checks if a name might have been added.
+     *
+     * @param hash the hash of the name, as computed by Identifiers.
+     * @return false if the name was certainly never added, true otherwise.
+     */
+    public boolean mightContain(int hash) {
+        int step = step(hash);
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (hash + i * step) & mask;
+            if ((bits[bit >> WORD_SHIFT] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if so many names were added that the filter should be rebuilt to stay selective.
+     *
+     * @return true if the filter holds more names than its size suits.
+     */
+    public boolean isCrowded() {
+        return population > (mask + 1) / Constants.NAME_FILTER_BITS_PER_NAME;
+    }
+
+    /**
+     * Empties the filter so it can be refilled.
+     * The filter grows if it is too small for the given number of names and otherwise keeps its size.
+     *
+     * @param nameCount the number of names the filter should have room for.
+     */
+    public void rebuild(int nameCount) {
+        int bitCount = mask + 1;
+        while (nameCount >= bitCount / (2 * Constants.NAME_FILTER_BITS_PER_NAME)) {
+            bitCount *= 2;
+        }
+        if (bitCount != mask + 1) {
+            bits = new long[bitCount >> WORD_SHIFT];
+            mask = bitCount - 1;
+        } else {
+            Arrays.fill(bits, 0);
+        }
+        population = 0;
+    }
+
+    /**
+     * Removes every name, keeping the bits for the next file.
+     */
+    public void clear() {
+        Arrays.fill(bits, 0);
+        population = 0;
+    }
+
+    // the distance between probes, odd so the probes of a name never coincide
+    private static int step(int hash) {
+        return (hash * PROBE_MULTIPLIER) >>> Short.SIZE | 1;
+    }
+}
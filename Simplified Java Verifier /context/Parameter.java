@@ -5,6 +5,7 @@ package ex5.context;
  */
 public class Parameter {
     private final String name; // parameter name
+    private final int id; // ID of the parameter name
     private final VariableType type; // parameter type
     private final boolean isFinal; // indicates if the parameter marked as final
 
@@ -12,11 +13,13 @@ public class Parameter {
      * Constructs a new Parameter with the given name, type, and finality.
      *
      * @param name    The name of the parameter.
+     * @param id      The ID of the parameter name.
      * @param type    The type of the parameter.
      * @param isFinal Whether the parameter is marked as final.
      */
-    public Parameter(String name, VariableType type, boolean isFinal) {
+    public Parameter(String name, int id, VariableType type, boolean isFinal) {
         this.name = name;
+        this.id = id;
         this.type = type;
         this.isFinal = isFinal;
     }
@@ -30,6 +33,15 @@ public class Parameter {
         return name;
     }
 
+    /**
+     * Retrieves the ID of the parameter name.
+     *
+     * @return The ID of the parameter name.
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Retrieves the type of the parameter.
      *
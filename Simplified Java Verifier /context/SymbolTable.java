@@ -0,0 +1,329 @@
+package ex5.context;
+
+import ex5.utils.Constants;
+import ex5.utils.ErrorMessages;
+
+import java.util.Arrays;
+
+/**
+ * The SymbolTable class holds the variables of all the open scopes in a single table indexed by identifier ID.
+ * Each ID maps to a stack of bindings, the innermost first, and each binding is tagged with the depth of the
+ * scope that declared it, so a lookup reads one array entry however deep the current scope is.
+ * Bindings live in parallel int arrays: the depth, the packed VariableInfo and the next binding of the same
+ * variable. Bindings of closed scopes are reused through a free list.
+ * Definite assignment is a bitset over variable IDs, with the bit of an ID telling whether its innermost
+ * declaration is initialized at this point. A scope inherits the bitset of the scope around it and its changes
+ * are undone when it closes, so an assignment inside an if/while block does not count after the block.
+ * Every depth has undo lists of the IDs that got a binding at it and of the bits it flipped, so popping a scope
+ * only touches what that scope changed.
+ * Once the first pass is done, the global bindings are frozen into a GlobalTable and the symbol table only
+ * holds the bindings of method scopes, which overlay the frozen globals.
+ */
+public class SymbolTable {
+
+    static final int NONE = 0; // binding references are the binding index + 1
+    private static final int WORD_SHIFT = 6; // ID >> WORD_SHIFT is the word of its bit
+
+    private final Identifiers identifiers; // names of the IDs, for error messages
+    private int[] heads; // Variable ID -> innermost binding
+    private int[] depths; // binding -> depth of the scope that declared it
+    private int[] infos; // binding -> packed VariableInfo
+    private int[] nexts; // binding -> the binding of the same variable in an outer scope, or the next free one
+    private int bindingCount; // bindings ever allocated
+    private int free; // first reusable binding
+    private long[] initialized; // Variable ID -> bit set if the innermost declaration is initialized
+    private int[][] addedIds; // depth -> IDs that got a binding at that depth
+    private int[] addedCounts; // depth -> number of IDs in addedIds
+    private int[][] flippedIds; // depth -> IDs whose initialized bit was flipped at that depth
+    private int[] flippedCounts; // depth -> number of IDs in flippedIds
+    private int depth; // depth of the current scope, 0 for the global scope
+
+    /**
+     * Constructs a SymbolTable with only the global scope open.
+     *
+     * @param identifiers the identifiers the variable IDs come from.
+     */
+    public SymbolTable(Identifiers identifiers) {
+        this.identifiers = identifiers;
+        this.heads = new int[Constants.INITIAL_IDENTIFIER_CAPACITY];
+        this.depths = new int[Constants.INITIAL_IDENTIFIER_CAPACITY];
+        this.infos = new int[Constants.INITIAL_IDENTIFIER_CAPACITY];
+        this.nexts = new int[Constants.INITIAL_IDENTIFIER_CAPACITY];
+        this.initialized = new long[Constants.INITIAL_IDENTIFIER_CAPACITY >> WORD_SHIFT];
+        this.addedIds = new int[Constants.INITIAL_SCOPE_CAPACITY][];
+        this.addedCounts = new int[Constants.INITIAL_SCOPE_CAPACITY];
+        this.flippedIds = new int[Constants.INITIAL_SCOPE_CAPACITY][];
+        this.flippedCounts = new int[Constants.INITIAL_SCOPE_CAPACITY];
+    }
+
+    /**
+     * Constructs a SymbolTable at the global scope with the initialized bits of another one, whose globals
+     * were already taken out. Both then overlay the same frozen globals independently.
+     *
+     * @param identifiers the identifiers the variable IDs come from.
+     * @param frozen      the table to copy, at the global scope.
+     */
+    SymbolTable(Identifiers identifiers, SymbolTable frozen) {
+        this(identifiers);
+        this.initialized = frozen.initialized.clone();
+    }
+
+    /**
+     * Gets the depth of the current scope.
+     *
+     * @return the depth of the current scope, 0 for the global scope.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Opens a new scope inside the current one.
+     */
+    public void pushScope() {
+        depth++;
+        if (depth == addedIds.length) {
+            addedIds = Arrays.copyOf(addedIds, depth * 2);
+            addedCounts = Arrays.copyOf(addedCounts, depth * 2);
+            flippedIds = Arrays.copyOf(flippedIds, depth * 2);
+            flippedCounts = Arrays.copyOf(flippedCounts, depth * 2);
+        }
+    }
+
+    /**
+     * Closes the current scope, removing every binding it added and undoing every assignment made in it.
+     */
+    public void popScope() {
+        int[] ids = flippedIds[depth];
+        for (int i = flippedCounts[depth] - 1; i >= 0; i--) {
+            flip(ids[i]);
+        }
+        flippedCounts[depth] = 0;
+        ids = addedIds[depth];
+        for (int i = 0; i < addedCounts[depth]; i++) {
+            // the current scope is the deepest, so its binding is the innermost one
+            int binding = heads[ids[i]];
+            heads[ids[i]] = nexts[binding - 1];
+            nexts[binding - 1] = free;
+            free = binding;
+        }
+        addedCounts[depth] = 0;
+        depth--;
+    }
+
+    /**
+     * Closes every scope and removes every binding, keeping the arrays for the next file.
+     */
+    public void clear() {
+        Arrays.fill(heads, NONE);
+        Arrays.fill(initialized, 0);
+        Arrays.fill(addedCounts, 0);
+        Arrays.fill(flippedCounts, 0);
+        bindingCount = 0;
+        free = NONE;
+        depth = Constants.GLOBAL_SCOPE_DEPTH;
+    }
+
+    /**
+     * Makes room for the given numbers of variable IDs, bindings and nested scopes, so the second pass of a
+     * file whose size is known does not grow the tables line by line.
+     *
+     * @param idCount      the number of variable IDs to make room for.
+     * @param bindingCount the number of bindings to make room for.
+     * @param maxDepth     the depth of the deepest scope to make room for.
+     */
+    public void ensureCapacity(int idCount, int bindingCount, int maxDepth) {
+        if (idCount > heads.length) {
+            heads = Arrays.copyOf(heads, idCount);
+        }
+        int words = (idCount >> WORD_SHIFT) + 1;
+        if (words > initialized.length) {
+            initialized = Arrays.copyOf(initialized, words);
+        }
+        if (bindingCount > depths.length) {
+            depths = Arrays.copyOf(depths, bindingCount);
+            infos = Arrays.copyOf(infos, bindingCount);
+            nexts = Arrays.copyOf(nexts, bindingCount);
+        }
+        if (maxDepth >= addedIds.length) {
+            addedIds = Arrays.copyOf(addedIds, maxDepth + 1);
+            addedCounts = Arrays.copyOf(addedCounts, maxDepth + 1);
+            flippedIds = Arrays.copyOf(flippedIds, maxDepth + 1);
+            flippedCounts = Arrays.copyOf(flippedCounts, maxDepth + 1);
+        }
+    }
+
+    /**
+     * Moves the bindings of the global scope out of the table, which must be at the global scope.
+     * The table then only holds the method scopes that overlay the frozen globals. The initialized bits of
+     * the globals stay, so every method starts from the state the first pass left them in.
+     *
+     * @param idCount the number of identifiers, an upper bound of the global variable IDs.
+     * @return the packed information of the global variables by ID, GlobalTable.ABSENT for other IDs.
+     */
+    int[] takeGlobals(int idCount) {
+        int[] globalInfos = new int[idCount];
+        Arrays.fill(globalInfos, GlobalTable.ABSENT);
+        int[] ids = addedIds[Constants.GLOBAL_SCOPE_DEPTH];
+        for (int i = 0; i < addedCounts[Constants.GLOBAL_SCOPE_DEPTH]; i++) {
+            int binding = heads[ids[i]];
+            globalInfos[ids[i]] = infos[binding - 1];
+            heads[ids[i]] = NONE;
+            nexts[binding - 1] = free;
+            free = binding;
+        }
+        addedCounts[Constants.GLOBAL_SCOPE_DEPTH] = 0;
+        return globalInfos;
+    }
+
+    /**
+     * Adds an initialized variable to the current scope.
+     *
+     * @param id         The ID of the variable.
+     * @param info       The variable's packed information.
+     * @param lineNumber The line number where the variable is declared.
+     * @throws VariableAlreadyExistsException If the variable is already declared in the current scope.
+     */
+    public void addInitializedVariable(int id, int info, int lineNumber) throws VariableAlreadyExistsException {
+        int binding = find(id);
+        if (binding != NONE && isOnThisScope(binding)) {
+            throw new VariableAlreadyExistsException(
+                    ErrorMessages.VARIABLE_ALREADY_DECLARED + identifiers.getName(id), lineNumber);
+        }
+        int added = bind(id); // bind may grow the arrays, so index them only afterwards
+        infos[added] = info;
+        setInitialized(id, true);
+    }
+
+    /**
+     * Adds an uninitialized variable to the current scope.
+     *
+     * @param id   The ID of the variable.
+     * @param info The variable's packed information.
+     */
+    public void addUninitializedVariable(int id, int info) {
+        int binding = find(id);
+        if (binding != NONE && isOnThisScope(binding)) {
+            infos[binding - 1] = info;
+        } else {
+            int added = bind(id);
+            infos[added] = info;
+        }
+        setInitialized(id, false);
+    }
+
+    /**
+     * Checks if the innermost declaration of a variable is initialized at this point.
+     *
+     * @param id The ID of the variable.
+     * @return true if the variable is initialized, false otherwise.
+     */
+    public boolean isInitialized(int id) {
+        int word = id >> WORD_SHIFT;
+        return word < initialized.length && (initialized[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * Marks the innermost declaration of a variable as initialized until the current scope closes.
+     *
+     * @param id The ID of the variable to mark.
+     */
+    public void markInitialized(int id) {
+        setInitialized(id, true);
+    }
+
+    /**
+     * Gets the name of a variable, for error messages.
+     *
+     * @param id The ID of the variable.
+     * @return The name of the variable.
+     */
+    String getName(int id) {
+        return identifiers.getName(id);
+    }
+
+    /**
+     * Finds the innermost binding of a variable.
+     *
+     * @param id The ID of the variable.
+     * @return A reference to the binding, or NONE if the variable is not declared.
+     */
+    int find(int id) {
+        return id < heads.length ? heads[id] : NONE;
+    }
+
+    /**
+     * Retrieves the packed information of a binding.
+     *
+     * @param binding A reference returned by find.
+     * @return The variable's packed information.
+     */
+    int getInfo(int binding) {
+        return infos[binding - 1];
+    }
+
+    /**
+     * Checks if a binding belongs to the current scope.
+     *
+     * @param binding A reference returned by find.
+     * @return true if the binding was declared in the current scope, false otherwise.
+     */
+    boolean isOnThisScope(int binding) {
+        return depths[binding - 1] == depth;
+    }
+
+    private void setInitialized(int id, boolean value) {
+        if (isInitialized(id) == value) {
+            return;
+        }
+        flip(id);
+        if (depth != Constants.GLOBAL_SCOPE_DEPTH) { // the global scope is never closed
+            flippedIds[depth] = log(flippedIds[depth], flippedCounts[depth], id);
+            flippedCounts[depth]++;
+        }
+    }
+
+    private void flip(int id) {
+        int word = id >> WORD_SHIFT;
+        if (word >= initialized.length) {
+            initialized = Arrays.copyOf(initialized, Math.max(initialized.length * 2, word + 1));
+        }
+        initialized[word] ^= 1L << id;
+    }
+
+    // pushes a new binding of an ID in the current scope and returns its index
+    private int bind(int id) {
+        if (id >= heads.length) {
+            heads = Arrays.copyOf(heads, Math.max(heads.length * 2, id + 1));
+        }
+        int binding;
+        if (free != NONE) {
+            binding = free - 1;
+            free = nexts[binding];
+        } else {
+            binding = bindingCount++;
+            if (binding == depths.length) {
+                depths = Arrays.copyOf(depths, binding * 2);
+                infos = Arrays.copyOf(infos, binding * 2);
+                nexts = Arrays.copyOf(nexts, binding * 2);
+            }
+        }
+        depths[binding] = depth;
+        nexts[binding] = heads[id];
+        heads[id] = binding + 1;
+        addedIds[depth] = log(addedIds[depth], addedCounts[depth], id);
+        addedCounts[depth]++;
+        return binding;
+    }
+
+    // appends an ID to an undo list, growing it if needed
+    private static int[] log(int[] ids, int count, int id) {
+        if (ids == null) {
+            ids = new int[Constants.INITIAL_SCOPE_CAPACITY];
+        } else if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+        }
+        ids[count] = id;
+        return ids;
+    }
+}
@@ -0,0 +1,117 @@
+package ex5.context;
+
+import ex5.utils.Constants;
+import ex5.utils.ErrorMessages;
+
+/**
+ * The VariableHandle class is the result of resolving a variable name once in the current scope.
+ * It points at the innermost declaration of the variable, so its type, finality, globality and
+ * initialization are read without walking the scopes again.
+ * The declaration is either a binding of the symbol table or a frozen global.
+ * A handle is only valid until the next scope is pushed or popped.
+ */
+public class VariableHandle {
+
+    private final SymbolTable symbols;
+    private final int id; // ID of the variable name
+    private final int binding; // innermost binding, SymbolTable.NONE if there is none
+    private final int globalInfo; // packed information of the frozen global, GlobalTable.ABSENT if none
+
+    /**
+     * Constructs a handle to the innermost declaration of a variable.
+     *
+     * @param symbols the symbol table the variable was resolved in.
+     * @param id      the ID of the variable.
+     * @param binding    the innermost binding of the variable.
+     * @param globalInfo the packed information of the frozen global the binding overlays.
+     */
+    VariableHandle(SymbolTable symbols, int id, int binding, int globalInfo) {
+        this.symbols = symbols;
+        this.id = id;
+        this.binding = binding;
+        this.globalInfo = globalInfo;
+    }
+
+    /**
+     * Gets the ID of the variable.
+     *
+     * @return the ID of the variable, or Identifiers.NO_ID for a name that was never declared in the file.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Checks if the variable is declared in the current or any parent scope.
+     *
+     * @return true if the variable is declared, false otherwise.
+     */
+    public boolean isDeclared() {
+        return binding != SymbolTable.NONE || globalInfo != GlobalTable.ABSENT;
+    }
+
+    /**
+     * Checks if the variable is declared in the current scope.
+     *
+     * @return true if the variable is declared in the current scope, false otherwise.
+     */
+    public boolean isDeclaredOnThisScope() {
+        if (binding == SymbolTable.NONE) {
+            return globalInfo != GlobalTable.ABSENT && symbols.getDepth() == Constants.GLOBAL_SCOPE_DEPTH;
+        }
+        return symbols.isOnThisScope(binding);
+    }
+
+    /**
+     * Retrieves the packed information of the variable.
+     *
+     * @return the variable's packed information.
+     * @throws IllegalArgumentException If the variable does not exist.
+     */
+    public int getInfo() {
+        if (binding != SymbolTable.NONE) {
+            return symbols.getInfo(binding);
+        }
+        if (globalInfo == GlobalTable.ABSENT) {
+            throw new IllegalArgumentException(ErrorMessages.VARIABLE_NOT_DECLARED + symbols.getName(id));
+        }
+        return globalInfo;
+    }
+
+    /**
+     * Retrieves the type of the variable.
+     *
+     * @return the variable's type.
+     * @throws IllegalArgumentException If the variable does not exist.
+     */
+    public VariableType getType() {
+        return VariableInfo.getType(getInfo());
+    }
+
+    /**
+     * Checks if the variable is marked as final.
+     *
+     * @return true if the variable is final, false otherwise.
+     * @throws IllegalArgumentException If the variable does not exist.
+     */
+    public boolean isFinal() {
+        return VariableInfo.isFinal(getInfo());
+    }
+
+    /**
+     * Checks if the variable is declared and uninitialized.
+     *
+     * @return true if the variable is uninitialized, false otherwise.
+     */
+    public boolean isUninitialized() {
+        return isDeclared() && !symbols.isInitialized(id);
+    }
+
+    /**
+     * Marks the innermost declaration of the variable as initialized until the current scope closes.
+     * A frozen global initialized inside a method is only initialized for the rest of that method.
+     */
+    public void markInitialized() {
+        symbols.markInitialized(id);
+    }
+}
@@ -1,48 +1,61 @@
 package ex5.context;
 /**
- * The VariableInfo class stores metadata about a variable, including its type,
- * whether it is final, and whether it is global.
+ * The VariableInfo class packs the metadata of a variable into a single int: the ordinal of its type in the
+ * low bits, then one bit each for whether it is final and global.
+ * The symbol table keeps one such int per binding in a primitive array, so a variable costs no object.
+ * Whether a variable is initialized depends on the point in the code, so it is kept apart, in the definite
+ * assignment bitset of the symbol table.
  */
 public class VariableInfo {
-    private boolean isFinal;
-    private VariableType type;
-    private boolean isGlobal;
+
+    private static final VariableType[] TYPES = VariableType.values();
+    private static final int TYPE_MASK = 0x7; // room for every VariableType ordinal
+    private static final int FINAL = 0x8;
+    private static final int GLOBAL = 0x10;
+
+    private VariableInfo() {
+        // Prevent instantiation
+    }
 
     /**
-     * Constructs a new VariableInfo object with the given properties.
+     * Packs the metadata of a variable.
      *
      * @param isFinal  Indicates if the variable is final.
      * @param type     The type of the variable.
      * @param isGlobal Indicates if the variable is global.
+     * @return The packed metadata.
      */
-    public VariableInfo(boolean isFinal, VariableType type, boolean isGlobal) {
-        this.isFinal = isFinal;
-        this.type = type;
-        this.isGlobal = isGlobal;
+    public static int pack(boolean isFinal, VariableType type, boolean isGlobal) {
+        return type.ordinal() | (isFinal ? FINAL : 0) | (isGlobal ? GLOBAL : 0);
     }
+
     /**
      * Checks if the variable is global.
      *
+     * @param info The packed metadata of the variable.
      * @return true if the variable is global, false otherwise.
      */
-    public boolean isGlobal(){
-        return isGlobal;
+    public static boolean isGlobal(int info) {
+        return (info & GLOBAL) != 0;
     }
+
     /**
      * Retrieves the type of the variable.
      *
+     * @param info The packed metadata of the variable.
      * @return The VariableType of the variable.
      */
-    public VariableType getType() {
-        return type;
+    public static VariableType getType(int info) {
+        return TYPES[info & TYPE_MASK];
     }
 
     /**
      * Checks if the variable is marked as final.
      *
+     * @param info The packed metadata of the variable.
      * @return true if the variable is final, false otherwise.
      */
-    public boolean isFinal() {
-        return isFinal;
+    public static boolean isFinal(int info) {
+        return (info & FINAL) != 0;
     }
 }
@@ -2,12 +2,15 @@ package ex5.context;
 
 //import ex5.exceptions.InvalidTypeException;
 import ex5.utils.Constants;
+import ex5.utils.Keyword;
 
 import static ex5.utils.ErrorMessages.INVALID_TYPE;
 
 /**
  * The VariableType enum represents the different types of variables that can be used
  * in the program. Each type is associated with a specific keyword.
+ * The types a variable accepts values of are kept in one matrix, a bitmask of value types per variable type,
+ * so every type check in the validators is an array load.
  */
 public enum VariableType {
     INT(Constants.KEYWORD_INT),
@@ -17,6 +20,16 @@ public enum VariableType {
     CHAR(Constants.KEYWORD_CHAR),
     UNKNOWN(Constants.UNKNOWN_TYPE);
 
+    private static final int[] ACCEPTED = new int[values().length]; // variable type -> bitmask of value types
+
+    static {
+        accept(INT, INT);
+        accept(DOUBLE, DOUBLE, INT);
+        accept(BOOLEAN, BOOLEAN, INT, DOUBLE);
+        accept(STRING, STRING);
+        accept(CHAR, CHAR);
+    }
+
     private final String name;
 
     /**
@@ -37,6 +50,58 @@ public enum VariableType {
         return name;
     }
 
+    /**
+     * Checks if a value of the given type can be assigned to a variable of this type.
+     *
+     * @param valueType The type of the value.
+     * @return true if the value fits this type, false otherwise.
+     */
+    public boolean accepts(VariableType valueType) {
+        return (ACCEPTED[ordinal()] & (1 << valueType.ordinal())) != 0;
+    }
+
+    /**
+     * Gets the variable types a value of the given type can be assigned to.
+     *
+     * @param valueType The type of the value.
+     * @return The bitmask of the variable types, bit i for the type of ordinal i.
+     */
+    public static int acceptingTypes(VariableType valueType) {
+        int types = 0;
+        for (int i = 0; i < ACCEPTED.length; i++) {
+            if ((ACCEPTED[i] & (1 << valueType.ordinal())) != 0) {
+                types |= 1 << i;
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Converts a keyword to a VariableType.
+     *
+     * @param keyword The keyword.
+     * @return The corresponding VariableType, or UNKNOWN if the keyword is not a type.
+     */
+    public static VariableType fromKeyword(Keyword keyword) {
+        if (keyword == null) {
+            return UNKNOWN;
+        }
+        switch (keyword) {
+            case INT:
+                return INT;
+            case DOUBLE:
+                return DOUBLE;
+            case BOOLEAN:
+                return BOOLEAN;
+            case STRING:
+                return STRING;
+            case CHAR:
+                return CHAR;
+            default:
+                return UNKNOWN;
+        }
+    }
+
     /**
      * Converts a string to a VariableType.
      *
@@ -46,12 +111,17 @@ public enum VariableType {
      * @throws InvalidTypeException If the string does not match any VariableType.
      */
     public static VariableType fromString(String name, int lineNumber) throws InvalidTypeException {
-        for (VariableType type : values()) {
-            if (type.name.equals(name)) {
-                return type;
-            }
+        VariableType type = fromKeyword(Keyword.recognize(name, 0, name.length()));
+        if (type == UNKNOWN && !UNKNOWN.name.equals(name)) {
+            throw new InvalidTypeException(INVALID_TYPE + name, lineNumber);
+        }
+        return type;
+    }
+
+    private static void accept(VariableType variableType, VariableType... valueTypes) {
+        for (VariableType valueType : valueTypes) {
+            ACCEPTED[variableType.ordinal()] |= 1 << valueType.ordinal();
         }
-        throw new InvalidTypeException(INVALID_TYPE + name, lineNumber);
     }
 
     @Override
@@ -0,0 +1,156 @@
+package ex5.main;
+
+import ex5.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The BatchScheduler class decides which files of a batch are verified next, and how many at once.
+ * Waiting files are taken smallest first, so a few huge files do not hold the workers while thousands of small
+ * ones wait. To keep a huge file from starving, every file found after it counts as a little larger than it,
+ * so a file is overtaken by a bounded number of later files: its size over Constants.AGING_BYTES_PER_FILE.
+ * Small files are packed together into one task, so their per-task overhead is paid once per pack.
+ * A pack is only started while a slot is free and its memory estimate fits the budget along with the packs
+ * already running, so several huge files are not verified at once. A pack is always started when nothing
+ * runs, so a file larger than the whole budget still gets verified, alone.
+ * Only the dispatching thread adds and takes files; workers only report the packs they finished.
+ *
+ * @param <T> the type of the scheduled files.
+ */
+class BatchScheduler<T> {
+
+    private final PriorityQueue<Job<T>> waiting = new PriorityQueue<>(
+            Comparator.<Job<T>>comparingLong(job -> job.priority).thenComparingLong(job -> job.sequence));
+    private final int slots; // packs running at once
+    private final long memoryBudget; // bytes the running packs are estimated to use at most
+    private long sequence; // files added so far
+    private int running; // packs started and not finished
+    private long memoryInUse; // estimated bytes used by the running packs
+
+    /**
+     * Constructs a BatchScheduler.
+     *
+     * @param slots        the number of packs to run at once.
+     * @param memoryBudget the estimated memory, in bytes, the running packs may use.
+     */
+    BatchScheduler(int slots, long memoryBudget) {
+        this.slots = slots;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Estimates the memory verifying a file takes: its bytes, its line table and the tables of the passes.
+     * Measured at a few bytes per source byte, doubled for the garbage made along the way.
+     * A profile of the first pass could refine this, but the first pass runs only after admission.
+     *
+     * @param size the size of the file, in bytes.
+     * @return the estimated memory, in bytes.
+     */
+    static long estimateMemory(long size) {
+        return size * Constants.MEMORY_PER_SOURCE_BYTE;
+    }
+
+    /**
+     * Adds a file to the waiting files.
+     *
+     * @param item the file.
+     * @param size the size of the file, in bytes.
+     */
+    void add(T item, long size) {
+        long priority = size + sequence * Constants.AGING_BYTES_PER_FILE; // later files age the earlier ones
+        waiting.add(new Job<>(item, size, priority, sequence++));
+    }
+
+    /**
+     * Gets the number of files waiting to be started.
+     *
+     * @return the number of waiting files.
+     */
+    int getWaitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * Takes the next pack of waiting files, waiting until a slot is free and its memory estimate fits.
+     * There must be a waiting file.
+     *
+     * @return the files of the pack, in the order to verify them.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    synchronized Pack<T> take() throws InterruptedException {
+        Job<T> first = waiting.peek();
+        long memory = estimateMemory(first.size);
+        while (running > 0 && (running >= slots || memoryInUse + memory > memoryBudget)) {
+            wait();
+        }
+        List<T> items = new ArrayList<>();
+        items.add(waiting.poll().item);
+        long packBytes = first.size;
+        // small files ride along with a small first file, up to the size and count of a pack
+        while (packBytes < Constants.PACK_BYTES && items.size() < Constants.PACK_FILES && !waiting.isEmpty()
+                && waiting.peek().size < Constants.SMALL_FILE_BYTES) {
+            Job<T> next = waiting.poll();
+            items.add(next.item);
+            packBytes += next.size;
+        }
+        memory = estimateMemory(packBytes);
+        running++;
+        memoryInUse += memory;
+        return new Pack<>(items, memory);
+    }
+
+    /**
+     * Reports a pack as finished, freeing its slot and its memory.
+     *
+     * @param pack the pack taken earlier.
+     */
+    synchronized void finished(Pack<T> pack) {
+        running--;
+        memoryInUse -= pack.memory;
+        notifyAll();
+    }
+
+    /**
+     * The Pack class holds files verified together by one task.
+     *
+     * @param <T> the type of the scheduled files.
+     */
+    static class Pack<T> {
+
+        private final List<T> items;
+        private final long memory; // estimated bytes, freed when the pack finishes
+
+        private Pack(List<T> items, long memory) {
+            this.items = items;
+            this.memory = memory;
+        }
+
+        /**
+         * Gets the files of the pack.
+         *
+         * @return the files, in the order to verify them.
+         */
+        List<T> getItems() {
+            return items;
+        }
+    }
+
+    // a waiting file with its size and place in the order
+    private static class Job<T> {
+
+        private final T item;
+        private final long size;
+        private final long priority; // size plus aging, smaller first
+        private final long sequence; // order the file was added in, to break ties
+
+        private Job(T item, long size, long priority, long sequence) {
+            this.item = item;
+            this.size = size;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package ex5.main;
+
+import ex5.exceptions.SjavacException;
+import ex5.exceptions.SjavacRuntimeException;
+import ex5.parser.Parser;
+import ex5.parser.SourceFile;
+import ex5.utils.Constants;
+import ex5.validator.ArgumentValidator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static ex5.utils.ErrorMessages.INTERNAL_ERROR;
+import static ex5.utils.ErrorMessages.IO_ERROR;
+
+/**
+ * The BatchVerifier class verifies many s-Java files in one run of the program, for builds that would
+ * otherwise start a JVM per file.
+ * The files are given as paths, as directories searched for s-Java files, or as a NUL-separated manifest on
+ * the standard input. Finding, reading and verifying them overlap:
+ *     An I/O pool walks the directories, listing subdirectories in parallel, and feeds the files in order
+ *     into a bounded queue.
+ *     A BatchScheduler takes the found files smallest first, packs small files together and holds huge files
+ *     back while the running ones use up the memory budget. At most the queue depth of files wait in it.
+ *     The I/O pool reads the bytes of the files of a pack once it is started, while earlier packs verify.
+ *     The work-stealing pool verifies the files whose bytes arrived, each with a parser taken from a pool of
+ *     idle parsers, so a worker reuses one parser and its context from file to file.
+ * Every file gets a line with its path and return code on the standard output, in the order the files were
+ * found, and its error message on the error stream. The exit code is the highest return code of all files.
+ * A last line on the error stream tells how long the workers waited for I/O and how long they verified.
+ */
+class BatchVerifier {
+
+    private static final FileResult END = new FileResult(null, 0); // queued once every file was found
+
+    private final ForkJoinPool pool; // runs the verification
+    private final ForkJoinPool ioPool; // walks the directories and reads the files
+    private final int queueDepth; // files found and waiting to be scheduled
+    private final long memoryBudget; // bytes the files being verified are estimated to use at most
+    private final boolean isVerbose; // report the profile of every file
+    private final ConcurrentLinkedQueue<Parser> idleParsers = new ConcurrentLinkedQueue<>();
+    private final LongAdder ioWaitNanos = new LongAdder(); // time workers waited for the bytes of a file
+    private final LongAdder verifyNanos = new LongAdder(); // time workers spent verifying
+    private final LongAdder readNanos = new LongAdder(); // time the I/O pool spent reading
+
+    /**
+     * Constructs a BatchVerifier running on the given pools.
+     *
+     * @param pool       the pool to verify the files on.
+     * @param ioPool     the pool to find and read the files on.
+     * @param queueDepth   the number of files found and waiting to be scheduled.
+     * @param memoryBudget the estimated memory, in bytes, the files being verified may use.
+     * @param isVerbose    whether to report the profile and strategy of every file.
+     */
+    BatchVerifier(ForkJoinPool pool, ForkJoinPool ioPool, int queueDepth, long memoryBudget, boolean isVerbose) {
+        this.pool = pool;
+        this.ioPool = ioPool;
+        this.queueDepth = queueDepth;
+        this.memoryBudget = memoryBudget;
+        this.isVerbose = isVerbose;
+    }
+
+    /**
+     * Reads the NUL-separated paths of a manifest.
+     *
+     * @param in the stream holding the manifest.
+     * @return the paths, without empty entries.
+     * @throws IOException if the manifest cannot be read.
+     */
+    static List<String> readManifest(InputStream in) throws IOException {
+        List<String> paths = new ArrayList<>();
+        for (String path : new String(in.readAllBytes(), Charset.defaultCharset())
+                .split(Constants.MANIFEST_SEPARATOR)) {
+            if (!path.isEmpty()) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Verifies the given files and directories and reports a return code for every file.
+     *
+     * @param paths the paths of files and of directories to search for s-Java files.
+     * @param out   the stream the return codes are printed to.
+     * @param err   the stream the error messages are printed to.
+     * @return the highest return code of all files, SUCCESS if every file is valid.
+     * @throws InterruptedException if the thread is interrupted while waiting for the files.
+     */
+    int run(List<String> paths, PrintStream out, PrintStream err) throws InterruptedException {
+        BlockingQueue<FileResult> found = new ArrayBlockingQueue<>(queueDepth);
+        Thread discoverer = new Thread(() -> discover(paths, found));
+        discoverer.setDaemon(true);
+        discoverer.start();
+
+        // every worker has a pack verifying and one whose bytes are being read
+        BatchScheduler<FileResult> scheduler = new BatchScheduler<>(
+                pool.getParallelism() * Constants.PACKS_PER_WORKER, memoryBudget);
+        List<FileResult> results = new ArrayList<>();
+        int reported = 0;
+        boolean isDiscovering = true;
+        while (isDiscovering || scheduler.getWaitingCount() > 0) {
+            // take the files found so far, waiting for one only if none is left to schedule
+            while (isDiscovering && scheduler.getWaitingCount() < queueDepth) {
+                FileResult result = scheduler.getWaitingCount() > 0 ? found.poll() : found.take();
+                if (result == null) {
+                    break;
+                }
+                if (result == END) {
+                    isDiscovering = false;
+                } else {
+                    results.add(result);
+                    if (result.returnCode == Constants.SUCCESS) { // a file to verify, not a directory that failed
+                        scheduler.add(result, result.size);
+                    }
+                }
+            }
+            if (scheduler.getWaitingCount() > 0) {
+                start(scheduler.take(), scheduler);
+            }
+            // report the files that are done, in order, while the rest are found
+            while (reported < results.size() && results.get(reported).isDone()) {
+                report(results.get(reported++), out, err);
+            }
+        }
+
+        int[] counts = new int[Constants.FILE_ERROR + 1]; // return code -> number of files
+        int exitCode = Constants.SUCCESS;
+        for (int i = 0; i < results.size(); i++) {
+            FileResult result = results.get(i);
+            if (result.task != null) {
+                result.task.quietlyJoin();
+            }
+            if (i >= reported) {
+                report(result, out, err);
+            }
+            counts[result.returnCode]++;
+            exitCode = Math.max(exitCode, result.returnCode);
+        }
+        err.println(String.format(Constants.BATCH_SUMMARY, results.size(), counts[Constants.SUCCESS],
+                counts[Constants.PARSING_ERROR], counts[Constants.FILE_ERROR]));
+        err.println(String.format(Constants.BATCH_STATS, toMillis(ioWaitNanos), toMillis(verifyNanos),
+                toMillis(readNanos), ioPool.getParallelism(), queueDepth));
+        return exitCode;
+    }
+
+    // reads the files of a pack on the I/O pool and verifies them on the pool, freeing the pack once done
+    private void start(BatchScheduler.Pack<FileResult> pack, BatchScheduler<FileResult> scheduler) {
+        List<FileResult> files = pack.getItems();
+        List<CompletableFuture<ByteBuffer>> contents = new ArrayList<>(files.size());
+        for (FileResult result : files) {
+            contents.add(CompletableFuture.supplyAsync(() -> read(result), ioPool));
+        }
+        ForkJoinTask<?> task = pool.submit(() -> {
+            int verified = 0;
+            try {
+                for (; verified < files.size(); verified++) {
+                    verify(files.get(verified), contents.get(verified));
+                }
+            } catch (Error e) {
+                // the files of the pack left unverified fail, and the rest of the batch goes on
+                for (int i = verified; i < files.size(); i++) {
+                    files.get(i).fail(Constants.FILE_ERROR, INTERNAL_ERROR + e);
+                }
+                throw e;
+            } finally {
+                scheduler.finished(pack);
+            }
+        });
+        for (FileResult result : files) {
+            result.task = task;
+        }
+    }
+
+    // queues the files of every path in order, then END, on a thread of its own so a full queue only
+    // blocks the discovery
+    private void discover(List<String> paths, BlockingQueue<FileResult> found) {
+        try {
+            for (String path : paths) {
+                Path start = Path.of(path);
+                if (!Files.isDirectory(start)) {
+                    found.put(new FileResult(path, sizeOf(start))); // validated when read, like a single file
+                    continue;
+                }
+                try {
+                    // the subdirectories are walked in parallel, and their files queued in order
+                    List<Path> entries = list(start);
+                    List<ForkJoinTask<List<String>>> walks = new ArrayList<>();
+                    for (Path entry : entries) {
+                        if (Files.isDirectory(entry)) {
+                            walks.add(ioPool.submit(new DirectoryWalk(entry)));
+                        }
+                    }
+                    int walk = 0;
+                    for (Path entry : entries) {
+                        if (Files.isDirectory(entry)) {
+                            for (String file : walks.get(walk++).join()) {
+                                found.put(new FileResult(file, sizeOf(Path.of(file))));
+                            }
+                        } else if (isSourceFile(entry)) {
+                            found.put(new FileResult(entry.toString(), sizeOf(entry)));
+                        }
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    IOException cause = e instanceof IOException ? (IOException) e
+                            : ((UncheckedIOException) e).getCause();
+                    FileResult failed = new FileResult(path, 0);
+                    failed.fail(Constants.FILE_ERROR, IO_ERROR + cause.getMessage());
+                    found.put(failed);
+                }
+            }
+            found.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // reads the bytes of a file on the I/O pool
+    private ByteBuffer read(FileResult result) {
+        long start = System.nanoTime();
+        try {
+            return SourceFile.readContent(ArgumentValidator.validatePath(result.path));
+        } catch (IOException | SjavacException e) {
+            throw new CompletionException(e);
+        } finally {
+            readNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // verifies one file with an idle parser once its bytes arrived, recording its return code and error message
+    private void verify(FileResult result, CompletableFuture<ByteBuffer> content) {
+        Parser parser = null;
+        try {
+            long waitStart = System.nanoTime();
+            ByteBuffer bytes;
+            try {
+                bytes = content.join();
+            } finally {
+                ioWaitNanos.add(System.nanoTime() - waitStart);
+            }
+            long verifyStart = System.nanoTime();
+            File file = new File(result.path);
+            parser = idleParsers.poll();
+            if (parser == null) {
+                parser = new Parser(file);
+            } else {
+                parser.reset(file);
+            }
+            try {
+                parser.parse(SourceFile.of(bytes));
+            } finally {
+                verifyNanos.add(System.nanoTime() - verifyStart);
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SjavacException) {
+                SjavacException cause = (SjavacException) e.getCause();
+                result.fail(cause.getReturnCode(), cause.getMessage());
+            } else {
+                result.fail(Constants.FILE_ERROR, IO_ERROR + e.getCause().getMessage());
+            }
+        } catch (SjavacException e) {
+            result.fail(e.getReturnCode(), e.getMessage());
+        } catch (SjavacRuntimeException e) {
+            result.fail(e.getReturnCode(), e.getMessage());
+        } catch (RuntimeException e) {
+            // a parser failing unexpectedly may be left in any state, so it is not reused
+            result.fail(Constants.FILE_ERROR, INTERNAL_ERROR + e);
+            parser = null;
+        } finally {
+            if (parser != null) {
+                if (isVerbose) {
+                    result.addMessage(String.format(Constants.VERBOSE_REPORT, result.path, parser.getProfile(),
+                            parser.getStrategy(), parser.getFilteredLookups()));
+                }
+                idleParsers.add(parser);
+            }
+        }
+    }
+
+    private static void report(FileResult result, PrintStream out, PrintStream err) {
+        if (result.message != null) {
+            err.println(String.format(Constants.BATCH_MESSAGE, result.path, result.message));
+        }
+        out.println(String.format(Constants.BATCH_RESULT, result.path, result.returnCode));
+    }
+
+    private static long toMillis(LongAdder nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+    }
+
+    // the size of a file for scheduling, 0 if it cannot be read, which the reading then reports
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isSourceFile(Path path) {
+        return path.toString().endsWith(Constants.VALID_EXTENSION) && Files.isRegularFile(path);
+    }
+
+    // the entries of a directory, sorted by name
+    private static List<Path> list(Path directory) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(entries::add);
+        }
+        entries.sort(null);
+        return entries;
+    }
+
+    /**
+     * The DirectoryWalk class finds the s-Java files under a directory, forking a walk for every
+     * subdirectory, and returns them sorted by name within each directory.
+     */
+    private static class DirectoryWalk extends RecursiveTask<List<String>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+
+        private DirectoryWalk(Path directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        protected List<String> compute() {
+            try {
+                List<Path> entries = list(directory);
+                List<DirectoryWalk> walks = new ArrayList<>();
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry)) {
+                        DirectoryWalk walk = new DirectoryWalk(entry);
+                        walk.fork();
+                        walks.add(walk);
+                    }
+                }
+                List<String> files = new ArrayList<>();
+                int walk = 0;
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry)) {
+                        files.addAll(walks.get(walk++).join());
+                    } else if (isSourceFile(entry)) {
+                        files.add(entry.toString());
+                    }
+                }
+                return files;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * The FileResult class holds the outcome of one file of the batch.
+     */
+    private static class FileResult {
+
+        private final String path;
+        private final long size; // bytes, to schedule the file by
+        private volatile int returnCode = Constants.SUCCESS;
+        private volatile String message; // error message and verbose report, null if none
+        private ForkJoinTask<?> task; // the verification of its pack, null until started or if not verified
+
+        private FileResult(String path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        private void fail(int returnCode, String message) {
+            this.returnCode = returnCode;
+            addMessage(message);
+        }
+
+        private void addMessage(String line) {
+            message = message == null ? line : message + System.lineSeparator() + line;
+        }
+
+        private boolean isDone() {
+            if (task == null) {
+                return returnCode != Constants.SUCCESS; // not started yet, unless it already failed when found
+            }
+            return task.isDone();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ex5.main;
+
+import ex5.utils.Constants;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The PipelineRegression class runs a batch that once hung on the classifier pipeline, in a separate JVM for
+ * each common pool parallelism, and exits with 0 if every run finishes in time with every file valid, 1
+ * otherwise.
+ * Each file starts with a block of declarations, then more than a block of comments, then enough declarations
+ * for its first pass to be pipelined. The block of comments is all skippable lines, so no one claims it, and
+ * the parser used to wait on it forever once the batch kept every worker of the pool busy.
+ * Run it with: java ex5.main.PipelineRegression
+ */
+class PipelineRegression {
+
+    private static final int FILES = 4; // files verified at once, enough to keep every worker busy
+    private static final int LEADING_DECLARATIONS = Constants.PIPELINE_BLOCK_LINES;
+    private static final int COMMENTS = Constants.PIPELINE_BLOCK_LINES + Constants.PIPELINE_BLOCK_LINES / 8;
+    private static final int TRAILING_DECLARATIONS = 20000;
+    private static final int[] PARALLELISMS = {2, 3, 4};
+    private static final long TIMEOUT_SECONDS = 60;
+    private static final String COMMON_PARALLELISM_PROPERTY = "java.util.concurrent.ForkJoinPool.common.parallelism";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("pipeline");
+        boolean isPassing = true;
+        try {
+            for (int file = 0; file < FILES; file++) {
+                Files.writeString(directory.resolve("f" + file + Constants.VALID_EXTENSION), generate());
+            }
+            for (int parallelism : PARALLELISMS) {
+                isPassing &= check(directory, parallelism);
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        System.exit(isPassing ? 0 : 1);
+    }
+
+    // the content of one file
+    private static String generate() {
+        StringBuilder content = new StringBuilder();
+        int variable = 0;
+        for (int i = 0; i < LEADING_DECLARATIONS; i++, variable++) {
+            content.append("int a").append(variable).append(" = ").append(variable).append(";\n");
+        }
+        for (int i = 0; i < COMMENTS; i++) {
+            content.append("// comment\n");
+        }
+        for (int i = 0; i < TRAILING_DECLARATIONS; i++, variable++) {
+            content.append("int a").append(variable).append(" = ").append(variable).append(";\n");
+        }
+        return content.toString();
+    }
+
+    // verifies the directory as a batch on a common pool of the given parallelism, reporting if it passed
+    private static boolean check(Path directory, int parallelism) throws IOException, InterruptedException {
+        Process batch = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-D" + COMMON_PARALLELISM_PROPERTY + "=" + parallelism,
+                "-cp", System.getProperty("java.class.path"),
+                Sjavac.class.getName(), Constants.BATCH_FLAG, directory.toString())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (!batch.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            batch.destroyForcibly();
+            System.out.println("parallelism " + parallelism + ": hung");
+            return false;
+        }
+        int returnCode = batch.exitValue();
+        System.out.println("parallelism " + parallelism + ": "
+                + (returnCode == Constants.SUCCESS ? "passed" : "failed with " + returnCode));
+        return returnCode == Constants.SUCCESS;
+    }
+}
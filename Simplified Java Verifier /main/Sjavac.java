@@ -5,24 +5,44 @@ import ex5.parser.Parser;
 import ex5.validator.ArgumentValidator;
 
 import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+import static ex5.utils.Constants.BATCH_FLAG;
 import static ex5.utils.Constants.FILE_ERROR;
+import static ex5.utils.Constants.IO_THREADS;
+import static ex5.utils.Constants.IO_THREADS_PROPERTY;
+import static ex5.utils.Constants.MEMORY_BUDGET_PERCENT;
+import static ex5.utils.Constants.MEMORY_BUDGET_PROPERTY;
+import static ex5.utils.Constants.QUEUE_DEPTH;
+import static ex5.utils.Constants.QUEUE_DEPTH_PROPERTY;
 import static ex5.utils.Constants.SUCCESS;
+import static ex5.utils.Constants.VERBOSE_PROPERTY;
+import static ex5.utils.Constants.VERBOSE_REPORT;
 import static ex5.utils.ErrorMessages.IO_ERROR;
 
 /**
  * The ex5.main entry point for the s-Java verifier program.
+ * Given a single file, it prints 0, 1 or 2. Given --batch followed by files and directories, or by nothing to
+ * read a NUL-separated manifest from the standard input, it verifies them all in one run and exits with the
+ * highest return code.
  */
 public class Sjavac {
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals(BATCH_FLAG)) {
+            System.exit(runBatch(Arrays.asList(args).subList(1, args.length)));
+        }
+        Parser parser = null;
+        File file = null;
         try {
 
             // Validate the file path
-            File file = ArgumentValidator.validateFile(args);
+            file = ArgumentValidator.validateFile(args);
 
             // Create the ex5.parser and parse the file
-            Parser parser = new Parser(file);
+            parser = new Parser(file);
             parser.parse();
 
             // If parsing is successful, print 0 (valid code)
@@ -38,6 +58,56 @@ public class Sjavac {
         } catch (SjavacRuntimeException e) {
             System.err.println(e.getMessage());
             System.out.println(e.getReturnCode());
+        } finally {
+            if (parser != null && Boolean.getBoolean(VERBOSE_PROPERTY)) {
+                report(file, parser);
+            }
+        }
+    }
+
+    /**
+     * Verifies many files in one run, see BatchVerifier.
+     *
+     * @param paths the files and directories to verify, or none to read them from the standard input.
+     * @return the exit code, the highest return code of all files.
+     */
+    private static int runBatch(List<String> paths) {
+        if (paths.isEmpty()) {
+            try {
+                paths = BatchVerifier.readManifest(System.in);
+            } catch (IOException e) {
+                System.err.println(IO_ERROR + e.getMessage());
+                return FILE_ERROR;
+            }
+        }
+        ForkJoinPool ioPool = new ForkJoinPool(Math.max(1, Integer.getInteger(IO_THREADS_PROPERTY, IO_THREADS)));
+        int queueDepth = Math.max(1, Integer.getInteger(QUEUE_DEPTH_PROPERTY, QUEUE_DEPTH));
+        long memoryBudget = Runtime.getRuntime().maxMemory() / 100 * MEMORY_BUDGET_PERCENT;
+        Integer budgetMegabytes = Integer.getInteger(MEMORY_BUDGET_PROPERTY);
+        if (budgetMegabytes != null) {
+            memoryBudget = budgetMegabytes * 1024L * 1024;
         }
+        BatchVerifier verifier = new BatchVerifier(ForkJoinPool.commonPool(), ioPool, queueDepth, memoryBudget,
+                Boolean.getBoolean(VERBOSE_PROPERTY));
+        try {
+            return verifier.run(paths, System.out, System.err);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FILE_ERROR;
+        } finally {
+            ioPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Reports the profile of a parsed file and the strategy chosen for it on the error stream, so the
+     * result printed on the standard output stays the same.
+     *
+     * @param file   the verified file.
+     * @param parser the parser that verified it.
+     */
+    private static void report(File file, Parser parser) {
+        System.err.println(String.format(VERBOSE_REPORT, file, parser.getProfile(), parser.getStrategy(),
+                parser.getFilteredLookups()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+package ex5.parser;
+
+import ex5.utils.Constants;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The ClassifierPipeline class classifies the lines of a large file on other threads, ahead of its first pass.
+ * The first pass then runs as a pipeline: the line table of the SourceFile holds the split and trimmed lines,
+ * classifiers identify the lines a block at a time and record them in the IR, and the parser follows in file
+ * order, applying the semantic checks of the first pass to lines already classified.
+ * A block is published in a ring of slots once classified, and the classifiers only claim blocks within the
+ * ring ahead of the parser, so a file failing early is not classified to its end. Marks only grow in a slot,
+ * so a block the parser skipped over, finishing late, does not hide a later block sharing its slot.
+ * Classification does not depend on the context, so the parser sees the kinds it would have found itself and
+ * reports the same error. The parser never waits for a block: it classifies a block itself when no classifier
+ * claimed it, when a classifier is still on it, or when a classifier failed on it, so the pipeline moves on
+ * even when every worker of the pool is busy, as in a batch run. A classifier still on a block writes the same
+ * kinds and spans to the IR as the parser does.
+ */
+class ClassifierPipeline {
+
+    private static final int FAILED = 1; // bit of the mark of a block a classifier failed on
+
+    private final SourceFile source;
+    private final LineIR ir;
+    private final int blockCount;
+    private final int classifierCount; // classifiers to run at once
+    private final AtomicIntegerArray ring; // block % ring size -> mark of the latest block classified in it
+    private final AtomicInteger nextBlock = new AtomicInteger(); // first block no one claimed
+    private final AtomicInteger active = new AtomicInteger(); // classifiers submitted and not finished
+    private final AtomicInteger busy = new AtomicInteger(); // classifiers that may be writing to the IR
+    private volatile int currentBlock; // the block the parser is on, blocks before it free their slot
+    private ForkJoinPool pool;
+    private int classifiedEnd; // the parser's: index after the lines known to be classified
+    private int unclassifiedEnd; // the parser's: index after the lines it classifies itself
+    private final ForkJoinPool.ManagedBlocker idle = new ForkJoinPool.ManagedBlocker() {
+        @Override
+        public boolean block() throws InterruptedException {
+            synchronized (ClassifierPipeline.this) {
+                while (busy.get() > 0) {
+                    ClassifierPipeline.this.wait();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return busy.get() == 0;
+        }
+    };
+
+    /**
+     * Constructs a pipeline for the first pass of a file.
+     *
+     * @param source          the file.
+     * @param ir              the IR the lines are classified into.
+     * @param classifierCount the number of threads to classify on.
+     */
+    ClassifierPipeline(SourceFile source, LineIR ir, int classifierCount) {
+        this.source = source;
+        this.ir = ir;
+        this.blockCount = (source.getLineCount() + Constants.PIPELINE_BLOCK_LINES - 1)
+                / Constants.PIPELINE_BLOCK_LINES;
+        this.classifierCount = classifierCount;
+        this.ring = new AtomicIntegerArray(Constants.PIPELINE_RING_BLOCKS);
+    }
+
+    /**
+     * Checks if a file is large enough for its lines to be classified ahead of its first pass.
+     *
+     * @param lineCount   the number of lines in the file.
+     * @param parallelism the number of threads available.
+     * @return true if the first pass should be pipelined, false otherwise.
+     */
+    static boolean shouldRun(int lineCount, int parallelism) {
+        return parallelism > 1 && lineCount >= Constants.PIPELINE_MINIMUM_LINES;
+    }
+
+    /**
+     * Starts the classifiers.
+     *
+     * @param pool the pool to run them on.
+     */
+    void start(ForkJoinPool pool) {
+        this.pool = pool;
+        submitClassifiers();
+    }
+
+    /**
+     * Checks if a line was classified into the IR. The lines must be asked about in file order, by the parser
+     * only.
+     *
+     * @param index the zero based index of the line.
+     * @return true if the IR holds the line, false if the parser has to classify it itself.
+     */
+    boolean isClassified(int index) {
+        if (index < classifiedEnd) {
+            return true;
+        }
+        if (index < unclassifiedEnd) {
+            return false;
+        }
+        int block = index / Constants.PIPELINE_BLOCK_LINES;
+        int blockEnd = Math.min(source.getLineCount(), (block + 1) * Constants.PIPELINE_BLOCK_LINES);
+        currentBlock = block;
+        submitClassifiers();
+        // the unclaimed blocks the parser went past hold skippable lines only, so they are claimed with this one
+        for (int next = nextBlock.get(); next <= block; next = nextBlock.get()) {
+            if (nextBlock.compareAndSet(next, block + 1)) {
+                unclassifiedEnd = blockEnd;
+                return false;
+            }
+        }
+        // no block sharing the slot after this one was claimed yet, so the mark reaches this block's
+        int mark = ring.get(block % ring.length());
+        if (mark < mark(block) || (mark & FAILED) != 0) {
+            unclassifiedEnd = blockEnd;
+            return false;
+        }
+        classifiedEnd = blockEnd;
+        return true;
+    }
+
+    /**
+     * Stops the classifiers, returning once none of them writes to the IR any more.
+     */
+    void stop() {
+        nextBlock.set(Integer.MAX_VALUE);
+        boolean interrupted = false;
+        while (busy.get() > 0) {
+            try {
+                // lets the pool run another worker while the parser's own waits on the classifiers
+                ForkJoinPool.managedBlock(idle);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the number of threads the lines are classified on.
+     *
+     * @return the number of classifiers.
+     */
+    int getClassifierCount() {
+        return classifierCount;
+    }
+
+    // submits classifiers up to their count while the ring has room for another block
+    private void submitClassifiers() {
+        while (hasRoom(nextBlock.get()) && active.get() < classifierCount) {
+            active.incrementAndGet();
+            pool.execute(this::classify);
+        }
+    }
+
+    // whether a block exists and fits in the ring ahead of the parser, away from the slot it waits on
+    private boolean hasRoom(int block) {
+        return block < blockCount && block < currentBlock + ring.length();
+    }
+
+    // claims and classifies blocks until none is left or the ring is full
+    private void classify() {
+        LineView view = source.newLineView();
+        try {
+            for (int block = nextBlock.get(); hasRoom(block); block = nextBlock.get()) {
+                busy.incrementAndGet(); // before claiming, so stop sees a claimed block being classified
+                if (!nextBlock.compareAndSet(block, block + 1)) {
+                    release();
+                    continue;
+                }
+                int mark = mark(block);
+                try {
+                    classifyBlock(block, view);
+                } catch (RuntimeException | Error e) {
+                    // the parser classifies the block again and fails on the same line, on its own thread
+                    mark |= FAILED;
+                }
+                ring.accumulateAndGet(block % ring.length(), mark, Math::max);
+                release();
+            }
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    // ends a classifier's hold on the IR, waking the parser stopping the classifiers once none holds it
+    private void release() {
+        if (busy.decrementAndGet() == 0 && nextBlock.get() == Integer.MAX_VALUE) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private static int mark(int block) {
+        return (block + 1) << 1;
+    }
+
+    private void classifyBlock(int block, LineView view) {
+        int end = Math.min(source.getLineCount(), (block + 1) * Constants.PIPELINE_BLOCK_LINES);
+        for (int index = block * Constants.PIPELINE_BLOCK_LINES; index < end; index++) {
+            if (!source.isSkippable(index)) {
+                LineClassifier.classify(source.getLineView(index, view), ir, index);
+            }
+        }
+    }
+}
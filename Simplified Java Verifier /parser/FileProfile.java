@@ -0,0 +1,165 @@
+package ex5.parser;
+
+import ex5.utils.Constants;
+
+import java.util.Arrays;
+
+/**
+ * The FileProfile class holds the statistics the first pass gathers about an s-Java file: how many global
+ * variables and methods it declares, how deep its scopes nest, how long its longest line is and how many
+ * lines of each kind it has.
+ * The parser uses the profile to presize the tables of the second pass and to pick how to run it.
+ */
+public class FileProfile {
+
+    private static final LineType[] KINDS = LineType.values();
+
+    private final int[] kindCounts = new int[KINDS.length]; // LineType ordinal -> number of lines
+    private int globalCount; // global variables declared
+    private int localDeclarations; // declaration lines inside methods
+    private int maxDepth; // deepest scope opened, 0 if the file only has globals
+    private int longestLine; // length of the longest line, without surrounding whitespace
+
+    /**
+     * Forgets the statistics of the previous file.
+     */
+    public void clear() {
+        Arrays.fill(kindCounts, 0);
+        globalCount = 0;
+        localDeclarations = 0;
+        maxDepth = 0;
+        longestLine = 0;
+    }
+
+    /**
+     * Records a line the first pass classified.
+     *
+     * @param kind   the type of the line.
+     * @param depth  the number of scopes open inside the line, counting one it opens.
+     * @param length the length of the line without surrounding whitespace.
+     */
+    public void recordLine(LineType kind, int depth, int length) {
+        kindCounts[kind.ordinal()]++;
+        if (kind == LineType.VARIABLE_DECLARATION && depth != Constants.GLOBAL_SCOPE_DEPTH) {
+            localDeclarations++;
+        }
+        maxDepth = Math.max(maxDepth, depth);
+        longestLine = Math.max(longestLine, length);
+    }
+
+    /**
+     * Records the global variables declared by a line.
+     *
+     * @param count the number of variables the line declares.
+     */
+    public void recordGlobals(int count) {
+        globalCount += count;
+    }
+
+    /**
+     * Gets the number of lines of a kind.
+     *
+     * @param kind the type of the lines.
+     * @return the number of lines of that kind.
+     */
+    public int getCount(LineType kind) {
+        return kindCounts[kind.ordinal()];
+    }
+
+    /**
+     * Gets the number of global variables.
+     *
+     * @return the number of global variables declared in the file.
+     */
+    public int getGlobalCount() {
+        return globalCount;
+    }
+
+    /**
+     * Gets the number of methods.
+     *
+     * @return the number of methods declared in the file.
+     */
+    public int getMethodCount() {
+        return getCount(LineType.METHOD_DECLARATION);
+    }
+
+    /**
+     * Gets the deepest scope nesting of the file.
+     *
+     * @return the depth of the deepest scope, 1 for a method body.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets the length of the longest line.
+     *
+     * @return the length of the longest line, without surrounding whitespace.
+     */
+    public int getLongestLine() {
+        return longestLine;
+    }
+
+    /**
+     * Estimates the local variables and parameters of the file, which the second pass declares.
+     * Every declaration line inside a method is counted once, and every method once for its parameters.
+     *
+     * @return an estimate of the variables the second pass declares.
+     */
+    public int estimateLocals() {
+        return localDeclarations + getMethodCount();
+    }
+
+    /**
+     * Checks if the file calls methods often enough for the call shape memo to pay for its bookkeeping.
+     *
+     * @return true if the second pass should memoize call shapes, false otherwise.
+     */
+    public boolean shouldMemoizeCalls() {
+        return getCount(LineType.METHOD_CALL) >= Constants.CALL_SHAPE_MEMO_MINIMUM_CALLS;
+    }
+
+    /**
+     * Checks if the file is large enough, and has enough methods, for its second pass to run in parallel.
+     *
+     * @param parallelism the number of threads available.
+     * @return true if the second pass should be split between threads, false otherwise.
+     */
+    public boolean shouldRunInParallel(int parallelism) {
+        return parallelism > 1 && getMethodCount() > 1 && getLineCount() >= Constants.PARALLEL_MINIMUM_LINES;
+    }
+
+    /**
+     * Gets the number of lines the first pass classified, which excludes blank lines and comments.
+     *
+     * @return the number of classified lines.
+     */
+    public int getLineCount() {
+        int count = 0;
+        for (int kindCount : kindCounts) {
+            count += kindCount;
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder kinds = new StringBuilder();
+        for (LineType kind : KINDS) {
+            if (kindCounts[kind.ordinal()] != 0) {
+                kinds.append(kinds.length() == 0 ? "" : ", ").append(kind).append('=')
+                        .append(kindCounts[kind.ordinal()]);
+            }
+        }
+        return "FileProfile{" +
+                "lines=" + getLineCount() +
+                ", globals=" + globalCount +
+                ", methods=" + getMethodCount() +
+                ", maxDepth=" + maxDepth +
+                ", longestLine=" + longestLine +
+                ", kinds={" + kinds + '}' +
+                '}';
+    }
+}
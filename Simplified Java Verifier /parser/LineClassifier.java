@@ -0,0 +1,248 @@
+package ex5.parser;
+
+import ex5.utils.Constants;
+import ex5.utils.Keyword;
+import ex5.validator.ValidatorHelper;
+
+/**
+ * The LineClassifier class identifies the type of a single line of s-Java without regular expressions.
+ * It reads the first word of the line once, dispatches on it, and checks only the line types that can start
+ * with that word. It gives the same answers as the line regular expressions it replaced,
+ * tried in the same order, for any line without '\n' or '\r' in it.
+ */
+public class LineClassifier {
+
+    private LineClassifier() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Identifies the type of the given line and records it, with the spans of its parts, in the IR.
+     *
+     * @param line  the trimmed line to analyze.
+     * @param ir    the IR of the file.
+     * @param index the zero based index of the line.
+     * @return the LineType corresponding to the given line.
+     */
+    public static LineType classify(CharSequence line, LineIR ir, int index) {
+        LineType kind = identify(line, ir, index);
+        ir.setKind(index, kind);
+        return kind;
+    }
+
+    private static LineType identify(CharSequence line, LineIR ir, int index) {
+        int length = line.length();
+        if (length == 0 || startsWithComment(line)) {
+            return LineType.WHITE_SPACE;
+        }
+        int first = skipWhiteSpace(line, 0);
+        int wordEnd = skipWord(line, first);
+        Keyword keyword = Keyword.recognize(line, first, wordEnd);
+
+        if (first == 0 && isMethodDeclaration(line, keyword, wordEnd, ir, index)) {
+            return LineType.METHOD_DECLARATION;
+        }
+        if (isVariableDeclaration(line, keyword, first, wordEnd, ir, index)) {
+            return LineType.VARIABLE_DECLARATION;
+        }
+        if ((keyword == Keyword.IF || keyword == Keyword.WHILE)
+                && isIfWhileBlock(line, first, wordEnd, ir, index)) {
+            return LineType.IF_WHILE_BLOCK_START;
+        }
+        if (first == 0 && wordEnd > 0 && isLetter(line.charAt(0)) && isMethodCall(line, wordEnd, ir, index)) {
+            return LineType.METHOD_CALL;
+        }
+        if (first < length && line.charAt(first) == '}' && skipWhiteSpace(line, first + 1) == length) {
+            return LineType.BLOCK_END;
+        }
+        if (wordEnd > first && isVariableAssignment(line, first, wordEnd, ir, index)) {
+            return LineType.VARIABLE_ASSIGNMENT;
+        }
+        if (keyword == Keyword.RETURN && isReturnStatement(line, wordEnd)) {
+            return LineType.RETURN_STATEMENT;
+        }
+        return LineType.UNKNOWN;
+    }
+
+    // void name ( ... ) {
+    private static boolean isMethodDeclaration(CharSequence line, Keyword keyword, int wordEnd, LineIR ir,
+                                               int index) {
+        if (keyword != Keyword.VOID
+                || wordEnd >= line.length() || !ValidatorHelper.isWhiteSpace(line.charAt(wordEnd))) {
+            return false;
+        }
+        int nameStart = skipWhiteSpace(line, wordEnd);
+        if (nameStart >= line.length() || !isLetter(line.charAt(nameStart))) {
+            return false;
+        }
+        int nameEnd = skipWord(line, nameStart);
+        int open = skipWhiteSpace(line, nameEnd);
+        if (open >= line.length() || line.charAt(open) != '(') {
+            return false;
+        }
+        int close = findBlockEnding(line, open + 1);
+        return close >= 0 && record(ir, index, nameStart, nameEnd, open + 1, close);
+    }
+
+    // [final] type ... ;
+    private static boolean isVariableDeclaration(CharSequence line, Keyword keyword, int first, int wordEnd,
+                                                 LineIR ir, int index) {
+        boolean isFinal = keyword == Keyword.FINAL;
+        int typeStart = first;
+        if (isFinal) {
+            if (wordEnd >= line.length() || !ValidatorHelper.isWhiteSpace(line.charAt(wordEnd))) {
+                return false;
+            }
+            typeStart = skipWhiteSpace(line, wordEnd);
+            wordEnd = skipWord(line, typeStart);
+            keyword = Keyword.recognize(line, typeStart, wordEnd);
+        }
+        if (keyword == null || !keyword.isType()
+                || wordEnd >= line.length() || !ValidatorHelper.isWhiteSpace(line.charAt(wordEnd))) {
+            return false;
+        }
+        int semicolon = findStatementEnding(line, wordEnd + 1);
+        if (semicolon < 0) {
+            return false;
+        }
+        if (isFinal) {
+            ir.setFinal(index);
+        }
+        return record(ir, index, typeStart, wordEnd, skipWhiteSpace(line, wordEnd), semicolon);
+    }
+
+    // (if|while) ( ... ) {
+    private static boolean isIfWhileBlock(CharSequence line, int first, int wordEnd, LineIR ir, int index) {
+        int open = skipWhiteSpace(line, wordEnd);
+        if (open >= line.length() || line.charAt(open) != '(') {
+            return false;
+        }
+        int close = findBlockEnding(line, open + 1);
+        return close >= 0 && record(ir, index, first, wordEnd, open + 1, close);
+    }
+
+    // name ( no closing parenthesis ) ;
+    private static boolean isMethodCall(CharSequence line, int wordEnd, LineIR ir, int index) {
+        int open = skipWhiteSpace(line, wordEnd);
+        if (open >= line.length() || line.charAt(open) != '(') {
+            return false;
+        }
+        int close = open + 1;
+        while (close < line.length() && line.charAt(close) != ')') {
+            close++;
+        }
+        if (close >= line.length()) {
+            return false;
+        }
+        int semicolon = skipWhiteSpace(line, close + 1);
+        return semicolon == line.length() - 1 && line.charAt(semicolon) == ';'
+                && record(ir, index, 0, wordEnd, open + 1, close);
+    }
+
+    // word = ... ;
+    private static boolean isVariableAssignment(CharSequence line, int first, int wordEnd, LineIR ir,
+                                                int index) {
+        int equals = skipWhiteSpace(line, wordEnd);
+        if (equals >= line.length() || line.charAt(equals) != '=') {
+            return false;
+        }
+        int semicolon = findStatementEnding(line, equals + 1);
+        return semicolon >= 0 && record(ir, index, first, wordEnd, first, semicolon);
+    }
+
+    // return ;
+    private static boolean isReturnStatement(CharSequence line, int wordEnd) {
+        int semicolon = skipWhiteSpace(line, wordEnd);
+        return semicolon < line.length() && line.charAt(semicolon) == ';'
+                && skipWhiteSpace(line, semicolon + 1) == line.length();
+    }
+
+    private static boolean record(LineIR ir, int index, int nameStart, int nameEnd, int bodyStart,
+                                  int bodyEnd) {
+        ir.setSpans(index, nameStart, nameEnd, bodyStart, bodyEnd);
+        return true;
+    }
+
+    /*
+     * Checks that the line from the given index is ".*\)\s*\{\s*", meaning the last non whitespace char is
+     * '{', the one before it is ')', and no line terminator comes before the ')'.
+     * Returns the index of the ')', or -1 if the line does not end this way.
+     */
+    private static int findBlockEnding(CharSequence line, int from) {
+        int end = skipWhiteSpaceBackwards(line, from, line.length());
+        if (end == from || line.charAt(end - 1) != '{') {
+            return -1;
+        }
+        int close = skipWhiteSpaceBackwards(line, from, end - 1) - 1;
+        if (close < from || line.charAt(close) != ')' || !hasNoLineTerminator(line, from, close)) {
+            return -1;
+        }
+        return close;
+    }
+
+    /*
+     * Checks that the line from the given index is ".+;\s*", meaning the last non whitespace char is ';' and at
+     * least one char, with no line terminator, comes before it.
+     * Returns the index of the ';', or -1 if the line does not end this way.
+     */
+    private static int findStatementEnding(CharSequence line, int from) {
+        int semicolon = skipWhiteSpaceBackwards(line, from, line.length()) - 1;
+        if (semicolon <= from || line.charAt(semicolon) != ';' || !hasNoLineTerminator(line, from, semicolon)) {
+            return -1;
+        }
+        return semicolon;
+    }
+
+    private static boolean hasNoLineTerminator(CharSequence line, int start, int end) {
+        // the chars '.' does not match in a regular expression, besides '\n' and '\r'
+        for (int i = start; i < end; i++) {
+            char current = line.charAt(i);
+            if (current == '\u0085' || current == '\u2028' || current == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWithComment(CharSequence line) {
+        if (line.length() < Constants.COMMENT_PREFIX.length()) {
+            return false;
+        }
+        for (int i = 0; i < Constants.COMMENT_PREFIX.length(); i++) {
+            if (line.charAt(i) != Constants.COMMENT_PREFIX.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhiteSpace(CharSequence line, int index) {
+        while (index < line.length() && ValidatorHelper.isWhiteSpace(line.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipWhiteSpaceBackwards(CharSequence line, int start, int end) {
+        while (end > start && ValidatorHelper.isWhiteSpace(line.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int skipWord(CharSequence line, int index) {
+        while (index < line.length() && isWordChar(line.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isLetter(char character) {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z');
+    }
+
+    private static boolean isWordChar(char character) {
+        // the characters matched by \w in a regular expression
+        return isLetter(character) || (character >= '0' && character <= '9') || character == '_';
+    }
+}
@@ -0,0 +1,156 @@
+package ex5.parser;
+
+import ex5.context.Context;
+import ex5.context.VariableType;
+import ex5.utils.Keyword;
+
+import java.util.Arrays;
+
+/**
+ * The LineIR class is the intermediate representation of an s-Java file, built once in the first pass.
+ * It is a struct of arrays holding, for every line, its type and the spans of its parts, so the second pass
+ * and the validators do not parse the line again. All offsets are relative to the trimmed line.
+ * The name span holds the method name of a method declaration or call, the keyword of an if/while block, the
+ * type of a variable declaration and the first variable of an assignment.
+ * The body span holds the parameter list, the argument list, the condition, the declarators or the
+ * assignments, without the closing ';'.
+ */
+public class LineIR {
+
+    private static final LineType[] LINE_TYPES = LineType.values();
+
+    private final byte[] kinds; // line index -> LineType ordinal
+    private final boolean[] finals; // line index -> true if the declaration is final
+    private final int[] nameStarts;
+    private final int[] nameEnds;
+    private final int[] bodyStarts;
+    private final int[] bodyEnds;
+
+    /**
+     * Constructs an empty LineIR for a file with the given number of lines.
+     *
+     * @param lineCount the number of lines in the file.
+     */
+    public LineIR(int lineCount) {
+        this.kinds = new byte[lineCount];
+        this.finals = new boolean[lineCount];
+        this.nameStarts = new int[lineCount];
+        this.nameEnds = new int[lineCount];
+        this.bodyStarts = new int[lineCount];
+        this.bodyEnds = new int[lineCount];
+    }
+
+    /**
+     * Prepares the LineIR for a file with the given number of lines, if it has room for them.
+     *
+     * @param lineCount the number of lines in the file.
+     * @return true if the LineIR can hold the file, false if a larger one is needed.
+     */
+    public boolean reuse(int lineCount) {
+        if (lineCount > kinds.length) {
+            return false;
+        }
+        Arrays.fill(finals, 0, lineCount, false);
+        return true;
+    }
+
+    /**
+     * Records the type of a line.
+     *
+     * @param index the zero based index of the line.
+     * @param kind  the type of the line.
+     */
+    void setKind(int index, LineType kind) {
+        kinds[index] = (byte) kind.ordinal();
+    }
+
+    /**
+     * Records the spans of the parts of a line.
+     *
+     * @param index     the zero based index of the line.
+     * @param nameStart the start of the name span.
+     * @param nameEnd   the end of the name span.
+     * @param bodyStart the start of the body span.
+     * @param bodyEnd   the end of the body span.
+     */
+    void setSpans(int index, int nameStart, int nameEnd, int bodyStart, int bodyEnd) {
+        nameStarts[index] = nameStart;
+        nameEnds[index] = nameEnd;
+        bodyStarts[index] = bodyStart;
+        bodyEnds[index] = bodyEnd;
+    }
+
+    /**
+     * Records that a variable declaration is final.
+     *
+     * @param index the zero based index of the line.
+     */
+    void setFinal(int index) {
+        finals[index] = true;
+    }
+
+    /**
+     * Gets the type of a line.
+     *
+     * @param index the zero based index of the line.
+     * @return the type of the line.
+     */
+    public LineType getKind(int index) {
+        return LINE_TYPES[kinds[index]];
+    }
+
+    /**
+     * Checks if a variable declaration is final.
+     *
+     * @param index the zero based index of the line.
+     * @return true if the declaration starts with final, false otherwise.
+     */
+    public boolean isFinal(int index) {
+        return finals[index];
+    }
+
+    /**
+     * Gets the name part of a line.
+     *
+     * @param line  the trimmed line.
+     * @param index the zero based index of the line.
+     * @return the name part.
+     */
+    public String getName(CharSequence line, int index) {
+        return line.subSequence(nameStarts[index], nameEnds[index]).toString();
+    }
+
+    /**
+     * Gets the type named by the name part of a variable declaration, without creating a String for it.
+     *
+     * @param line  the trimmed line.
+     * @param index the zero based index of the line.
+     * @return the declared type.
+     */
+    public VariableType getType(CharSequence line, int index) {
+        return VariableType.fromKeyword(Keyword.recognize(line, nameStarts[index], nameEnds[index]));
+    }
+
+    /**
+     * Gets the ID of the name part of a line, without creating a String for it.
+     *
+     * @param line    the trimmed line.
+     * @param index   the zero based index of the line.
+     * @param context the context that assigns the IDs.
+     * @return the ID of the name part.
+     */
+    public int getNameId(CharSequence line, int index, Context context) {
+        return context.intern(line, nameStarts[index], nameEnds[index]);
+    }
+
+    /**
+     * Gets the body part of a line.
+     *
+     * @param line  the trimmed line.
+     * @param index the zero based index of the line.
+     * @return the body part, a view over the file rather than a copy when the line is ASCII.
+     */
+    public CharSequence getBody(CharSequence line, int index) {
+        return line.subSequence(bodyStarts[index], bodyEnds[index]);
+    }
+}
@@ -0,0 +1,73 @@
+package ex5.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable window over one ASCII line of a {@link SourceFile}.
+ * Each byte is read as one char straight from the file content, so no String is created for the line
+ * unless {@link #toString()} is called (for example, to build an error message).
+ * The window is moved to the next line by the source, so it must not be kept after the line is processed.
+ * A sub sequence is a window of its own over the same content, which never changes, so it can be kept.
+ */
+class LineView implements CharSequence {
+
+    private final ByteBuffer content; // the raw bytes of the file
+    private int start; // offset of the first char of the line
+    private int length; // number of chars in the line
+
+    /**
+     * Constructs a new LineView over the given content.
+     *
+     * @param content the raw bytes of the file.
+     */
+    LineView(ByteBuffer content) {
+        this.content = content;
+    }
+
+    /**
+     * Moves the window to a new line.
+     *
+     * @param start offset of the first char of the line.
+     * @param end   offset after the last char of the line.
+     */
+    void moveTo(int start, int end) {
+        this.start = start;
+        this.length = end - start;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (char) (content.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException(start);
+        }
+        // the part outlives this window, which moves on to the next line, without copying it
+        LineView part = new LineView(content);
+        part.moveTo(this.start + start, this.start + end);
+        return part;
+    }
+
+    @Override
+    public String toString() {
+        return decode(start, length);
+    }
+
+    private String decode(int offset, int count) {
+        byte[] bytes = new byte[count];
+        content.get(offset, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
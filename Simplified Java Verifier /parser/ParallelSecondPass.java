@@ -0,0 +1,161 @@
+package ex5.parser;
+
+import ex5.context.Context;
+import ex5.exceptions.SjavacException;
+import ex5.utils.Constants;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ParallelSecondPass class runs the second pass of a file on a fork-join pool.
+ * Once the first pass froze the globals and the method signatures, a method body only depends on them and on
+ * its own scopes, so the file is cut into chunks of whole methods, at lines of the global scope, and the chunks
+ * are verified concurrently. Each worker is a parser with its own fork of the context.
+ * The result is the one of the serial pass: the chunks are joined in file order and the first one that failed
+ * reports its error, which is the earliest failing line. Once a chunk fails, the chunks after it are skipped
+ * or stopped, since none of their errors could be reported, and the pass waits for the stopped ones to return.
+ */
+class ParallelSecondPass {
+
+    private static final int DONE = 0; // every line of the chunk was verified
+    private static final int FAILED = 1; // a line of the chunk failed
+    private static final int STOPPED = 2; // the chunk was cut short by the failure of an earlier one
+    private static final int UNBALANCED = 3; // the chunk did not end at the global scope
+
+    private final SourceFile source;
+    private final LineIR ir;
+    private final Context context; // the frozen context the workers fork
+    private final File file;
+    private final int[] chunkStarts; // chunk -> index of its first line, then the line count
+    private final Exception[] failures; // chunk -> the error it failed with
+    private final AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE); // earliest failed chunk
+    private final ConcurrentLinkedQueue<Parser> idleWorkers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Parser> allWorkers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Cuts a file into chunks for its second pass.
+     *
+     * @param source      the file, after its first pass.
+     * @param ir          the line table of the first pass.
+     * @param context     the context of the first pass, with its globals frozen.
+     * @param file        the file, for the workers.
+     * @param parallelism the number of threads the pass will run on.
+     */
+    ParallelSecondPass(SourceFile source, LineIR ir, Context context, File file, int parallelism) {
+        this.source = source;
+        this.ir = ir;
+        this.context = context;
+        this.file = file;
+        this.chunkStarts = split(source, parallelism);
+        this.failures = new Exception[chunkStarts.length - 1];
+    }
+
+    /**
+     * Gets the number of chunks the file was cut into.
+     *
+     * @return the number of chunks.
+     */
+    int getChunkCount() {
+        return chunkStarts.length - 1;
+    }
+
+    /**
+     * Verifies every chunk on the given pool and reports the earliest error, as the serial pass would.
+     *
+     * @param pool the pool to run the chunks on.
+     * @return true if the file was verified, false if a chunk did not end at the global scope, in which case
+     * the chunks were not independent and the serial pass must be run instead.
+     * @throws SjavacException if a line fails verification.
+     */
+    boolean run(ForkJoinPool pool) throws SjavacException {
+        int chunkCount = getChunkCount();
+        List<ForkJoinTask<Integer>> tasks = new ArrayList<>(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int current = chunk;
+            tasks.add(pool.submit(() -> verify(current)));
+        }
+        try {
+            // every chunk before the first one that is not DONE was verified, so its outcome is the file's
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                int outcome = tasks.get(chunk).join();
+                if (outcome == FAILED) {
+                    throwFailure(failures[chunk]);
+                }
+                if (outcome != DONE) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            firstFailure.set(-1); // stops the chunks still running at their next line
+            for (ForkJoinTask<Integer> task : tasks) {
+                task.cancel(false); // a chunk not started yet never starts
+            }
+            // wait for the running chunks, so none uses the pool or the IR once the pass returns, and the
+            // counters of their contexts are read after their last write
+            for (ForkJoinTask<Integer> task : tasks) {
+                task.quietlyJoin();
+            }
+            for (Parser worker : allWorkers) {
+                context.addFilteredLookups(worker.getContext());
+            }
+        }
+    }
+
+    private int verify(int chunk) {
+        if (firstFailure.get() < chunk) {
+            return STOPPED;
+        }
+        Parser worker = idleWorkers.poll();
+        if (worker == null) {
+            worker = new Parser(file, context.fork(), ir, source.newLineView());
+            allWorkers.add(worker);
+        }
+        try {
+            if (!worker.verifyChunk(source, chunkStarts[chunk], chunkStarts[chunk + 1], firstFailure, chunk)) {
+                return STOPPED;
+            }
+            if (!worker.getContext().isInGlobalScope()) {
+                worker.getContext().popToGlobalScope();
+                return UNBALANCED;
+            }
+            return DONE;
+        } catch (SjavacException | RuntimeException e) {
+            failures[chunk] = e;
+            firstFailure.accumulateAndGet(chunk, Math::min);
+            return FAILED;
+        } finally {
+            idleWorkers.add(worker);
+        }
+    }
+
+    private static void throwFailure(Exception failure) throws SjavacException {
+        if (failure instanceof SjavacException) {
+            throw (SjavacException) failure;
+        }
+        throw (RuntimeException) failure;
+    }
+
+    // cuts the file at global lines into about CHUNKS_PER_THREAD chunks per thread, none below the minimum size
+    private static int[] split(SourceFile source, int parallelism) {
+        int lineCount = source.getLineCount();
+        int chunkSize = Math.max(Constants.MINIMUM_CHUNK_LINES,
+                lineCount / (parallelism * Constants.CHUNKS_PER_THREAD));
+        int[] starts = new int[lineCount / chunkSize + 2];
+        int count = 1; // the first chunk starts at line 0
+        for (int index = chunkSize; index < lineCount; index++) {
+            if (index - starts[count - 1] >= chunkSize && source.getDepth(index) == Constants.GLOBAL_SCOPE_DEPTH) {
+                starts[count++] = index;
+            }
+        }
+        starts[count++] = lineCount;
+        return Arrays.copyOf(starts, count);
+    }
+}
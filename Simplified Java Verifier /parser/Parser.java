@@ -3,6 +3,7 @@ package ex5.parser;
 import ex5.context.Context;
 import ex5.exceptions.*;
 import ex5.exceptions.SjavacException;
+import ex5.utils.Constants;
 import ex5.validator.UnAssignedVariableException;
 import ex5.validator.VariableNotDefinedException;
 import ex5.validator.IncompatibleTypeException;
@@ -10,9 +11,10 @@ import ex5.validator.ConditionSyntaxException;
 import ex5.validator.*;
 
 import java.io.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static ex5.utils.ErrorMessages.*;
-import static ex5.utils.RegexPatterns.*;
 
 /**
  * The Parser class is responsible for parsing an s-Java file.
@@ -22,11 +24,17 @@ import static ex5.utils.RegexPatterns.*;
 public class Parser {
 
     private final Context context;
-    private final File file;
+    private File file;
+    private LineIR ir; // built by the first pass and read by the second
+    private final Declarators declarators = new Declarators(); // reused by every declaration and assignment
+    private final FileProfile profile = new FileProfile(); // gathered by the first pass
     private int lineNumber;
     private boolean isReturn;
     private boolean isFirstPass =true;
-    private int scopeTrack=0;
+    private LineView view; // the view a worker of a parallel second pass reads lines through
+    private int chunkCount; // chunks of the last parallel second pass, 0 if it ran serially
+    private ClassifierPipeline pipeline; // classifies lines ahead of the first pass, null if it classifies them
+    private int classifierCount; // threads the last first pass was classified ahead on, 0 if none
 
 
     /**
@@ -42,48 +50,197 @@ public class Parser {
 
     }
 
+    /**
+     * Constructs a worker for a parallel second pass, verifying chunks of a file with its own context.
+     *
+     * @param file    the s-Java file.
+     * @param context a fork of the context of the first pass.
+     * @param ir      the line table built by the first pass.
+     * @param view    the worker's own view over the file.
+     */
+    Parser(File file, Context context, LineIR ir, LineView view) {
+        this.file = file;
+        this.context = context;
+        this.ir = ir;
+        this.view = view;
+        this.isFirstPass = false;
+    }
+
+    /**
+     * Prepares the Parser to verify another file, reusing its context and line tables.
+     *
+     * @param file the s-Java file.
+     */
+    public void reset(File file) {
+        this.file = file;
+        this.context.reset();
+        this.lineNumber = 0;
+        this.isReturn = false;
+        this.isFirstPass = false;
+    }
+
 
     /**
      * Parses the given s-Java file.
+     * The file is read from disk once, and both passes iterate over its line table.
      *
      * @throws IOException if an error occurs during file reading.
      */
     public void parse() throws IOException, SjavacException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            // First pass
-            isFirstPass = true; // Set methodRun to true for the first pass
-            processFile(reader);
-
-            // Second pass
-            lineNumber = 0;
-            isFirstPass = false; // Set methodRun to false for the second pass
-            // Reopen the file for the second pass
-            try (BufferedReader secondReader = new BufferedReader(new FileReader(file))) {
-                processFile(secondReader);
+        parse(SourceFile.read(file));
+    }
+
+    /**
+     * Parses the s-Java file from a source already read, as when its bytes were prefetched.
+     *
+     * @param source the source of the file this parser was given.
+     * @throws SjavacException if the file is not valid s-Java.
+     */
+    public void parse(SourceFile source) throws SjavacException {
+        // Reject unbalanced files (usually truncated ones) before any regex runs
+        if (!source.isBalanced()) {
+            throw new OpenScopeException(OPEN_SCOPE, source.getLineCount() + 1);
+        }
+
+        if (ir == null || !ir.reuse(source.getLineCount())) {
+            ir = new LineIR(source.getLineCount());
+        }
+
+        // First pass, with large files classified ahead of it on other threads
+        profile.clear();
+        isFirstPass = true; // Set methodRun to true for the first pass
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        classifierCount = 0;
+        if (ClassifierPipeline.shouldRun(source.getLineCount(), parallelism)) {
+            pipeline = new ClassifierPipeline(source, ir, parallelism - 1);
+            classifierCount = pipeline.getClassifierCount();
+            pipeline.start(ForkJoinPool.commonPool());
+        }
+        try {
+            processFile(source);
+        } finally {
+            if (pipeline != null) {
+                pipeline.stop(); // the IR is this parser's again
+                pipeline = null;
+            }
+        }
+
+        // Second pass, over the frozen globals, with tables sized and strategy picked from the profile
+        context.freezeGlobals();
+        context.presize(profile.estimateLocals(), profile.getMaxDepth());
+        context.setMemoizesCalls(profile.shouldMemoizeCalls());
+        lineNumber = 0;
+        isFirstPass = false; // Set methodRun to false for the second pass
+        chunkCount = 0;
+        if (profile.shouldRunInParallel(parallelism)) {
+            ParallelSecondPass pass = new ParallelSecondPass(source, ir, context, file, parallelism);
+            chunkCount = pass.getChunkCount();
+            if (pass.run(ForkJoinPool.commonPool())) {
+                return;
             }
+            // the chunks were not independent after all, so verify the file as one
+            chunkCount = 0;
         }
+        processFile(source);
     }
 
 
 
-    private void processFile(BufferedReader reader) throws IOException, SjavacException {
-        String line;
+    /**
+     * Gets the statistics the first pass gathered about the last file.
+     *
+     * @return the profile of the last file parsed.
+     */
+    public FileProfile getProfile() {
+        return profile;
+    }
 
+    /**
+     * Describes how the second pass of the last file was run, as chosen from its profile.
+     *
+     * @return a short description of the strategy.
+     */
+    public String getStrategy() {
+        String pass = chunkCount == 0 ? Constants.SERIAL_PASS_STRATEGY
+                : String.format(Constants.PARALLEL_PASS_STRATEGY, chunkCount);
+        if (classifierCount != 0) {
+            pass = String.format(Constants.PIPELINED_PASS_STRATEGY, classifierCount) + pass;
+        }
+        return pass + (profile.shouldMemoizeCalls() ? Constants.MEMOIZED_CALLS_STRATEGY
+                : Constants.FULL_CALLS_STRATEGY);
+    }
 
-        while ((line = reader.readLine()) != null) {
-            lineNumber++;
-            if (isWhiteSpace(line)){
+    /**
+     * Gets the context of this parser.
+     *
+     * @return the context.
+     */
+    Context getContext() {
+        return context;
+    }
+
+    /**
+     * Gets the number of undeclared name lookups the Bloom filter of the context answered on its own.
+     *
+     * @return the number of lookups the filter short-circuited, over every file this parser verified.
+     */
+    public long getFilteredLookups() {
+        return context.getFilteredLookups();
+    }
+
+    private void processFile(SourceFile source) throws SjavacException {
+        processLines(source, source.newLineView(), 0, source.getLineCount(), null, 0);
+        if (!context.isInGlobalScope()) {
+            throw new OpenScopeException(OPEN_SCOPE ,++lineNumber);
+        }
+
+    }
+
+    /**
+     * Verifies a range of lines with this parser's context, as a worker of a parallel second pass.
+     * The range must start at the global scope. If a line fails, the scopes it left open are closed again, so
+     * the worker can verify another range.
+     *
+     * @param source       the file.
+     * @param from         the index of the first line.
+     * @param to           the index after the last line.
+     * @param firstFailure the earliest chunk known to fail; the range stops once an earlier one fails.
+     * @param chunk        the number of the range, in file order.
+     * @return true if every line was verified, false if the range was cut short by an earlier failure.
+     * @throws SjavacException if a line fails verification.
+     */
+    boolean verifyChunk(SourceFile source, int from, int to, AtomicInteger firstFailure, int chunk)
+            throws SjavacException {
+        isReturn = false;
+        try {
+            return processLines(source, view, from, to, firstFailure, chunk);
+        } catch (SjavacException | RuntimeException e) {
+            context.popToGlobalScope();
+            throw e;
+        }
+    }
+
+    // runs the current pass over a range of lines, stopping early once a chunk before the given one failed
+    private boolean processLines(SourceFile source, LineView view, int from, int to, AtomicInteger firstFailure,
+                                 int chunk) throws SjavacException {
+        for (int index = from; index < to; index++) {
+            lineNumber = index + 1;
+            if (source.isSkippable(index)) {
                 continue;
             }
-            line = line.trim(); // Trim leading/trailing whitespace
+            if (firstFailure != null && firstFailure.get() < chunk) {
+                context.popToGlobalScope();
+                return false;
+            }
+            CharSequence line = source.getLineView(index, view); // Trimmed line, valid until the next one
 
             if(isFirstPass){
-                processFirstPass(line);
+                processFirstPass(line, source, index);
                 continue;
             }
             //second pass -
-            // Identify the type of the line
-            LineType lineType = identifyLineType(line);
+            // The type of the line was identified by the first pass
+            LineType lineType = ir.getKind(index);
 
             // Second pass logic
             switch (lineType) {
@@ -92,41 +249,42 @@ public class Parser {
                     break;
                 case VARIABLE_DECLARATION:
                     if (!context.isInGlobalScope()) {
-                        handleVariableDeclaration(line);
+                        handleVariableDeclaration(line, index);
                     }
                     break;
                 case METHOD_DECLARATION:
-                    handleMethodDeclaration(line, isFirstPass);
+                    handleMethodDeclaration(line, index, isFirstPass);
                     break;
                 case IF_WHILE_BLOCK_START:
-                    handleIfWhileBlockStart(line);
+                    handleIfWhileBlockStart(line, index);
                     break;
                 case BLOCK_END:
                     if ( !isReturn && context.isInMethodScope()) {
                         throw new UnreturnedMethodException(UNRETURNED_METHOD, lineNumber);
                     }
-                    handleBlockEnd(line);
+                    // a '}' with no open scope before it, which the depth count lets through
+                    if (context.isInGlobalScope()) {
+                        throw new OpenScopeException(UNOPENED_SCOPE, lineNumber);
+                    }
+                    handleBlockEnd();
                     break;
                 case METHOD_CALL:
-                    handleMethodCall(line);
+                    handleMethodCall(line, index);
                     break;
                 case VARIABLE_ASSIGNMENT:
                     if (!context.isInGlobalScope()) {
-                        handleVariableAssignment(line);
+                        handleVariableAssignment(line, index);
                     }
                     break;
                 case RETURN_STATEMENT:
-                    handleReturnStatement(line);
+                    handleReturnStatement();
                     break;
                 default:
                     throw new UnknownLineTypeException(UNKNOWN_LINE_TYPE + lineNumber);
             }
             isReturn = lineType == LineType.RETURN_STATEMENT;
         }
-        if (scopeTrack!=0 || !context.isInGlobalScope()) {
-            throw new OpenScopeException(OPEN_SCOPE ,++lineNumber);
-        }
-
+        return true;
     }
 
 
@@ -134,99 +292,65 @@ public class Parser {
         throw new InvalidCommentException(INVALID_COMMENT, this.lineNumber);
     }
 
-    private void processFirstPass(String line) throws SjavacException {
-        // check if method declaration line
-        if (METHOD_DECLARATION_PATTERN.matcher(line).matches()) {
-            handleMethodDeclaration(line, isFirstPass);
-            scopeTrack++;
+    private void processFirstPass(CharSequence line, SourceFile source, int index) throws SjavacException {
+        // Identify the line once, the second pass reads the result from the IR
+        LineType lineType = pipeline != null && pipeline.isClassified(index) ? ir.getKind(index)
+                : LineClassifier.classify(line, ir, index);
+        profile.recordLine(lineType, source.getDepth(index) + (source.opensScope(index) ? 1 : 0), line.length());
+        if (lineType == LineType.METHOD_DECLARATION) {
+            handleMethodDeclaration(line, index, isFirstPass);
         }
-        if (IF_WHILE_BLOCK_PATTERN.matcher(line).matches()) {
-            scopeTrack++;
+        // scope depth was already computed when the file was read
+        if (source.opensScope(index) || source.closesScope(index) || source.getDepth(index) != 0) {
+            return;
         }
-        if (BLOCK_END_PATTERN.matcher(line).matches()) {
-            scopeTrack--;
+        // global line
+        if (lineType == LineType.VARIABLE_DECLARATION) {
+            handleVariableDeclaration(line, index);
+            profile.recordGlobals(declarators.getCount());
         }
-        if (VARIABLE_DECLARATION_PATTERN.matcher(line).matches()
-            && scopeTrack==0) {
-            handleVariableDeclaration(line);
-        }
-        if (VARIABLE_ASSIGNMENT_PATTERN.matcher(line).matches()
-        && scopeTrack==0) {
-            handleVariableAssignment(line);
+        if (lineType == LineType.VARIABLE_ASSIGNMENT) {
+            handleVariableAssignment(line, index);
         }
 
     }
 
 
-    /**
-     * Identifies the type of the given line.
-     *
-     * @param line the line to analyze.
-     * @return the LineType corresponding to the given line.
-     */
-    private LineType identifyLineType(String line) throws SjavacException {
-        if (line == null || line.isEmpty() || line.startsWith("//")) {
-            return LineType.WHITE_SPACE; // Skip empty or null lines
-        }
-        if (METHOD_DECLARATION_PATTERN.matcher(line).matches()) {
-            return LineType.METHOD_DECLARATION;
-        }
-        if (VARIABLE_DECLARATION_PATTERN.matcher(line).matches()) {
-            return LineType.VARIABLE_DECLARATION;
-        }
-        if (IF_WHILE_BLOCK_PATTERN.matcher(line).matches()) {
-            return LineType.IF_WHILE_BLOCK_START;
-        }
-        if (METHOD_CALL_PATTERN.matcher(line).matches()) {
-            return LineType.METHOD_CALL;
-        }
-        if (BLOCK_END_PATTERN.matcher(line).matches()) {
-            return LineType.BLOCK_END;
-        }
-        if (VARIABLE_ASSIGNMENT_PATTERN.matcher(line).matches()) {
-            return LineType.VARIABLE_ASSIGNMENT;
-        }
-        if (RETURN_STATEMENT_PATTERN.matcher(line).matches()) {
-            return LineType.RETURN_STATEMENT;
-        }
-        return LineType.UNKNOWN;
-    }
-
-    private void handleVariableDeclaration(String line) throws SjavacException{
-        boolean isValid = VariableDeclarationAssignmentValidator.validateDeclaration(line, context,
-                lineNumber, isFirstPass);
+    private void handleVariableDeclaration(CharSequence line, int index) throws SjavacException{
+        boolean isValid = VariableDeclarationAssignmentValidator.validateDeclaration(line, ir.isFinal(index),
+                ir.getType(line, index), ir.getBody(line, index), declarators, context, lineNumber,
+                isFirstPass);
 
     }
-    private void handleMethodDeclaration(String line, boolean isMethodRun) throws SjavacException {
-        boolean isValid = MethodDeclarationValidator.validate(line, context, lineNumber, isMethodRun);
+    private void handleMethodDeclaration(CharSequence line, int index, boolean isMethodRun)
+            throws SjavacException {
+        boolean isValid = MethodDeclarationValidator.validate(ir.getNameId(line, index, context),
+                ir.getBody(line, index), context, lineNumber, isMethodRun);
 
     }
-    private void handleMethodCall(String line) throws SjavacException {
-        boolean isValid = MethodCallValidator.validate(line, context, lineNumber);
+    private void handleMethodCall(CharSequence line, int index) throws SjavacException {
+        boolean isValid = MethodCallValidator.validate(ir.getNameId(line, index, context), ir.getBody(line, index),
+                context, lineNumber);
 
     }
 
-    private void handleBlockEnd(String line) {
+    private void handleBlockEnd() {
         //doesnt need validator, can do only -
         context.popScope();
     }
-    private void handleVariableAssignment(String line) throws SjavacException {
-        boolean isValid = VariableDeclarationAssignmentValidator.validateAssignment(line, context,
-                lineNumber);
+    private void handleVariableAssignment(CharSequence line, int index) throws SjavacException {
+        boolean isValid = VariableDeclarationAssignmentValidator.validateAssignment(line,
+                ir.getBody(line, index), declarators, context, lineNumber);
 
     }
-    private void handleReturnStatement(String line) throws InvalidReturnPositionException {
-        boolean isValid = ReturnStatementValidator.validate(line, context, lineNumber);
+    private void handleReturnStatement() throws InvalidReturnPositionException {
+        boolean isValid = ReturnStatementValidator.validate(context, lineNumber);
 
     }
-    private void handleIfWhileBlockStart(String line) throws UnAssignedVariableException,
+    private void handleIfWhileBlockStart(CharSequence line, int index) throws UnAssignedVariableException,
             VariableNotDefinedException, ConditionSyntaxException, IncompatibleTypeException {
-        boolean isValid = IfWhileBlockValidator.validate(line, context, lineNumber);
-
-    }
+        boolean isValid = IfWhileBlockValidator.validate(ir.getBody(line, index), context, lineNumber);
 
-    private boolean isWhiteSpace(String line) {
-        return line == null || EMPTY_LINE_PATTERN.matcher(line).matches() || line.startsWith("//");
     }
 
 }
@@ -0,0 +1,359 @@
+package ex5.parser;
+
+import ex5.utils.Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The SourceFile class holds the content of an s-Java file after reading it from disk once.
+ * It keeps a line table (trimmed start and end offsets into the content, whether the line is blank or a
+ * comment, and the scope depth of the line) that both passes of the parser iterate over.
+ * The scope depth is computed the way the parser counts scopes: a line ending with '{' opens a scope and a line
+ * made of a single '}' closes one, so an unbalanced file is known before any regex runs.
+ * Files larger than {@link Constants#MAPPED_FILE_THRESHOLD} are memory-mapped instead of copied to the heap.
+ * Large files are cut into chunks after line breaks and the chunks are scanned concurrently. A chunk only knows
+ * the depth of its lines relative to its start, so the depth every chunk starts at is a prefix sum of the depth
+ * changes of the chunks before it.
+ * ASCII lines can be read through a reusable {@link LineView}, so they never become a String on the happy path.
+ */
+public class SourceFile {
+
+    private final ByteBuffer content; // the raw bytes of the file
+    private final Charset charset; // charset used to decode a line
+    private int[] lineStarts; // line index -> offset of the first non-whitespace byte
+    private int[] lineEnds; // line index -> offset after the last non-whitespace byte
+    private byte[] lineFlags; // line index -> SKIPPABLE_FLAG, ASCII_FLAG, OPEN_FLAG and CLOSE_FLAG bits
+    private int[] lineDepths; // line index -> number of scopes open before the line
+    private int lineCount;
+    private int depth; // number of scopes open after the last line
+    private final LineView view; // the window returned by getLineView
+
+    private SourceFile(ByteBuffer content, Charset charset, boolean isWhole) {
+        this.content = content;
+        this.charset = charset;
+        this.lineStarts = new int[Constants.INITIAL_LINE_CAPACITY];
+        this.lineEnds = new int[Constants.INITIAL_LINE_CAPACITY];
+        this.lineFlags = new byte[Constants.INITIAL_LINE_CAPACITY];
+        this.lineDepths = new int[Constants.INITIAL_LINE_CAPACITY];
+        this.view = new LineView(content);
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (isWhole && parallelism > 1 && content.limit() >= Constants.PARALLEL_SCAN_MINIMUM_BYTES) {
+            buildLineTableInParallel(parallelism * Constants.CHUNKS_PER_THREAD);
+        } else {
+            buildLineTable();
+        }
+    }
+
+    /**
+     * Reads the given file and builds its line table.
+     *
+     * @param file the s-Java file.
+     * @return the source of the file.
+     * @throws IOException if an error occurs during file reading.
+     */
+    public static SourceFile read(File file) throws IOException {
+        return of(readContent(file));
+    }
+
+    /**
+     * Reads the bytes of the given file without building its line table, so the reading can be done ahead of
+     * time by another thread.
+     *
+     * @param file the s-Java file.
+     * @return the content of the file.
+     * @throws IOException if an error occurs during file reading.
+     */
+    public static ByteBuffer readContent(File file) throws IOException {
+        if (file.length() > Constants.MAPPED_FILE_THRESHOLD) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * Builds the line table of content already read.
+     *
+     * @param content the content of the file, as returned by readContent.
+     * @return the source of the file.
+     */
+    public static SourceFile of(ByteBuffer content) {
+        return new SourceFile(content, Charset.defaultCharset(), true);
+    }
+
+    /**
+     * Gets the number of lines in the file.
+     *
+     * @return the number of lines.
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Checks if a line is blank or a comment, and so should be skipped by the parser.
+     *
+     * @param index the zero based index of the line.
+     * @return true if the line is blank or starts with "//", false otherwise.
+     */
+    public boolean isSkippable(int index) {
+        return (lineFlags[index] & Constants.SKIPPABLE_FLAG) != 0;
+    }
+
+    /**
+     * Checks if a line opens a scope, meaning it ends with '{'.
+     *
+     * @param index the zero based index of the line.
+     * @return true if the line opens a scope, false otherwise.
+     */
+    public boolean opensScope(int index) {
+        return (lineFlags[index] & Constants.OPEN_FLAG) != 0;
+    }
+
+    /**
+     * Checks if a line closes a scope, meaning it is a single '}'.
+     *
+     * @param index the zero based index of the line.
+     * @return true if the line closes a scope, false otherwise.
+     */
+    public boolean closesScope(int index) {
+        return (lineFlags[index] & Constants.CLOSE_FLAG) != 0;
+    }
+
+    /**
+     * Gets the number of scopes open before a line, where 0 is the global scope.
+     *
+     * @param index the zero based index of the line.
+     * @return the scope depth of the line.
+     */
+    public int getDepth(int index) {
+        return lineDepths[index];
+    }
+
+    /**
+     * Checks if every scope opened in the file is also closed.
+     *
+     * @return true if the scopes are balanced, false otherwise.
+     */
+    public boolean isBalanced() {
+        return depth == 0;
+    }
+
+    /**
+     * Gets a line without its leading and trailing whitespace.
+     *
+     * @param index the zero based index of the line.
+     * @return the trimmed line.
+     */
+    public String getLine(int index) {
+        int start = lineStarts[index];
+        byte[] bytes = new byte[lineEnds[index] - start];
+        content.get(start, bytes);
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Gets a line without its leading and trailing whitespace, avoiding a copy when possible.
+     * An ASCII line is returned as the shared {@link LineView}, which is only valid until the next call;
+     * any other line is decoded into a String.
+     *
+     * @param index the zero based index of the line.
+     * @return the trimmed line.
+     */
+    public CharSequence getLineView(int index) {
+        return getLineView(index, view);
+    }
+
+    /**
+     * Gets a line without its leading and trailing whitespace through the given view, so every thread reading
+     * the file can keep its own window.
+     *
+     * @param index the zero based index of the line.
+     * @param view  a view created by newLineView, moved to the line if it is ASCII.
+     * @return the trimmed line.
+     */
+    CharSequence getLineView(int index, LineView view) {
+        if ((lineFlags[index] & Constants.ASCII_FLAG) == 0) {
+            return getLine(index);
+        }
+        view.moveTo(lineStarts[index], lineEnds[index]);
+        return view;
+    }
+
+    /**
+     * Creates a view over the content of the file, for a thread other than the one using getLineView.
+     *
+     * @return a new view, not yet on any line.
+     */
+    LineView newLineView() {
+        return new LineView(content);
+    }
+
+    private void buildLineTable() {
+        int limit = content.limit();
+        int start = 0;
+        for (int i = 0; i < limit; i++) {
+            byte current = content.get(i);
+            if (current == '\n' || current == '\r') {
+                addLine(start, i);
+                // treat "\r\n" as a single line break
+                if (current == '\r' && i + 1 < limit && content.get(i + 1) == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        if (start < limit) {
+            addLine(start, limit);
+        }
+    }
+
+    // scans chunks of the content concurrently, each as a SourceFile of its own, and joins their line tables
+    private void buildLineTableInParallel(int chunkCount) {
+        int[] bounds = splitAtLineBreaks(chunkCount);
+        SourceFile[] chunks = new SourceFile[bounds.length - 1];
+        List<ForkJoinTask<?>> scans = new ArrayList<>(chunks.length);
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            int current = chunk;
+            scans.add(ForkJoinTask.adapt(() -> chunks[current] = new SourceFile(
+                    content.slice(bounds[current], bounds[current + 1] - bounds[current]), charset, false)));
+        }
+        ForkJoinTask.invokeAll(scans);
+
+        // the first line and the depth of a chunk are prefix sums of the lines and depth changes before it
+        int[] firstLines = new int[chunks.length + 1];
+        int[] startDepths = new int[chunks.length + 1];
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            firstLines[chunk + 1] = chunks[chunk].lineCount;
+            startDepths[chunk + 1] = chunks[chunk].depth;
+        }
+        Arrays.parallelPrefix(firstLines, Integer::sum);
+        Arrays.parallelPrefix(startDepths, Integer::sum);
+        lineCount = firstLines[chunks.length];
+        depth = startDepths[chunks.length];
+        lineStarts = new int[lineCount];
+        lineEnds = new int[lineCount];
+        lineFlags = new byte[lineCount];
+        lineDepths = new int[lineCount];
+        List<ForkJoinTask<?>> copies = new ArrayList<>(chunks.length);
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            int current = chunk;
+            copies.add(ForkJoinTask.adapt(() -> copyLines(chunks[current], firstLines[current],
+                    bounds[current], startDepths[current])));
+        }
+        ForkJoinTask.invokeAll(copies);
+    }
+
+    // cuts the content into about the given number of chunks, each ending after a line break
+    private int[] splitAtLineBreaks(int chunkCount) {
+        int limit = content.limit();
+        int[] bounds = new int[chunkCount + 1];
+        int count = 1; // the first chunk starts at 0
+        for (int chunk = 1; chunk < chunkCount; chunk++) {
+            int bound = Math.max(bounds[count - 1], (int) ((long) limit * chunk / chunkCount));
+            while (bound < limit && content.get(bound) != '\n' && content.get(bound) != '\r') {
+                bound++;
+            }
+            // keep "\r\n" in one chunk
+            if (bound + 1 < limit && content.get(bound) == '\r' && content.get(bound + 1) == '\n') {
+                bound++;
+            }
+            if (bound + 1 < limit) {
+                bounds[count++] = bound + 1;
+            }
+        }
+        bounds[count++] = limit;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    // copies the line table of a chunk into place, moving its offsets and depths to those of the file
+    private void copyLines(SourceFile chunk, int firstLine, int offset, int startDepth) {
+        System.arraycopy(chunk.lineFlags, 0, lineFlags, firstLine, chunk.lineCount);
+        for (int line = 0; line < chunk.lineCount; line++) {
+            lineStarts[firstLine + line] = chunk.lineStarts[line] + offset;
+            lineEnds[firstLine + line] = chunk.lineEnds[line] + offset;
+            lineDepths[firstLine + line] = chunk.lineDepths[line] + startDepth;
+        }
+    }
+
+    private void addLine(int start, int end) {
+        if (lineCount == lineStarts.length) {
+            int capacity = lineCount * 2;
+            lineStarts = Arrays.copyOf(lineStarts, capacity);
+            lineEnds = Arrays.copyOf(lineEnds, capacity);
+            lineFlags = Arrays.copyOf(lineFlags, capacity);
+            lineDepths = Arrays.copyOf(lineDepths, capacity);
+        }
+        int flags = scanFlags(start, end);
+        // trim the same characters String.trim() does
+        while (start < end && (content.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (content.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        if ((flags & Constants.SKIPPABLE_FLAG) == 0 && end > start) {
+            flags |= scanBraces(start, end);
+        }
+        lineFlags[lineCount] = (byte) flags;
+        lineDepths[lineCount] = depth;
+        if ((flags & Constants.OPEN_FLAG) != 0) {
+            depth++;
+        } else if ((flags & Constants.CLOSE_FLAG) != 0) {
+            depth--;
+        }
+        lineStarts[lineCount] = start;
+        lineEnds[lineCount] = end;
+        lineCount++;
+    }
+
+    private int scanFlags(int start, int end) {
+        boolean isBlank = true;
+        boolean isAscii = true;
+        for (int i = start; i < end; i++) {
+            byte current = content.get(i);
+            isBlank &= isWhiteSpaceByte(current);
+            isAscii &= current >= 0;
+        }
+        int flags = isAscii ? Constants.ASCII_FLAG : 0;
+        if (isBlank || isComment(start, end)) {
+            flags |= Constants.SKIPPABLE_FLAG;
+        }
+        return flags;
+    }
+
+    private int scanBraces(int trimmedStart, int trimmedEnd) {
+        byte last = content.get(trimmedEnd - 1);
+        if (last == '{') {
+            return Constants.OPEN_FLAG;
+        }
+        if (last == '}' && trimmedEnd - trimmedStart == 1) {
+            return Constants.CLOSE_FLAG;
+        }
+        return 0;
+    }
+
+    private boolean isComment(int start, int end) {
+        return end - start >= Constants.COMMENT_PREFIX.length()
+                && content.get(start) == Constants.COMMENT_PREFIX.charAt(0)
+                && content.get(start + 1) == Constants.COMMENT_PREFIX.charAt(1);
+    }
+
+    private static boolean isWhiteSpaceByte(byte value) {
+        // the characters matched by \s in a regular expression
+        return value == ' ' || value == '\t' || value == '\n' || value == 0x0B || value == '\f'
+                || value == '\r';
+    }
+}
@@ -17,6 +17,11 @@ public class Constants {
     public static final String KEYWORD_STRING = "String";
     public static final String KEYWORD_CHAR = "char";
     public static final String UNKNOWN_TYPE = "unknown";
+    public static final String KEYWORD_VOID = "void";
+    public static final String KEYWORD_FINAL = "final";
+    public static final String KEYWORD_IF = "if";
+    public static final String KEYWORD_WHILE = "while";
+    public static final String KEYWORD_RETURN = "return";
 
     public static final String VALID_EXTENSION = ".sjava";
 
@@ -24,28 +29,17 @@ public class Constants {
     public static final int FILE_ERROR = 2; // File-related errors
     public static final int PARSING_ERROR = 1; // Parsing or validation errors
 
-    // Reserved keywords in s-Java
-    public static final String[] RESERVED_KEYWORDS = {
-            "int", "double", "boolean", "char", "String", "void",
-            "if", "while", "return", "final" // Added "final" here
-    };
-
     //argument validator
     public static final int VALID_ARGUMENTS_LENGTH = 1;
     public static final int VALID_FILEPATH_POSITION = 0;
 
     public static final String FALSE_CONSTANT = "false";
     public static final String TRUE_CONSTANT = "true";
-    public static final String EMPTY_STRING = "";
 
     //if-while
-    public static final String AND_OR_SEPARATOR = "&\\{2}|\\|{2}";
-    public static final String CONDITION_START = "^\\s*(if|while)\\s*\\(";
-    public static final String CLOSE_BOOLEAN_EXPRESSION = "\\s*\\)\\s*\\{$";
+    public static final int OPERATOR_LENGTH = 2; // length of "&&" and "||"
 
     //methods
-    public static final int METHOD_NAME_POSITION = 1;
-    public static final int PARAMETER_LIST_POSITION = 2;
     public static final int MINIMUM_PARAMETER_LENGTH = 2;
     public static final int MAXIMUM_PARAMETER_LENGTH = 3;
 
@@ -57,14 +51,60 @@ public class Constants {
     public static final int PRESERVE_TRAILING_EMPTY_STRINGS = -1;
 
     //varaibles
-    public static final int FINAL_POSITION = 1;
-    public static final int TYPE_POSITION = 2;
-    public static final String END_LINE = "\\s*;\\s*$";
-    public static final String DECLARATION_START = "^(final\\s+)?(int|double|boolean|char|String)\\s+";
-    public static final String EMPTY_LINE = "";
-    public static final String DECLARATION_SEPARATOR = "\\s*,\\s*";
-    public static final int INITIALIZATION_VALUE_POSITION =4;
-    public static final int INITIALIZATION_VARIABLE_POSITION = 1;
+    public static final int INITIAL_DECLARATOR_CAPACITY = 16; // a power of two
+    public static final int MAXIMUM_ASSIGNMENTS = 2; // assignments allowed in one line
+
+    //context
+    public static final int GLOBAL_SCOPE_DEPTH = 0;
+    public static final int METHOD_SCOPE_DEPTH = 1;
+    public static final int INITIAL_IDENTIFIER_CAPACITY = 64; // a power of two
+    public static final int INITIAL_SCOPE_CAPACITY = 8;
+    public static final int INITIAL_CALL_SHAPE_CAPACITY = 64; // a power of two
+    public static final int INITIAL_NAME_FILTER_BITS = 1024; // a power of two, at least 64
+    public static final int NAME_FILTER_BITS_PER_NAME = 8;
 
     //parser
+    public static final String COMMENT_PREFIX = "//";
+    public static final long MAPPED_FILE_THRESHOLD = 64L * 1024 * 1024; // files above it are memory-mapped
+    public static final int INITIAL_LINE_CAPACITY = 256;
+    public static final int PARALLEL_SCAN_MINIMUM_BYTES = 1 << 20; // smaller files are scanned by one thread
+    public static final int SKIPPABLE_FLAG = 1; // blank or comment line
+    public static final int ASCII_FLAG = 2; // line can be read through a LineView
+    public static final int OPEN_FLAG = 4; // line ends with '{'
+    public static final int CLOSE_FLAG = 8; // line is a single '}'
+    public static final int CALL_SHAPE_MEMO_MINIMUM_CALLS = 32; // fewer calls are validated in full
+    public static final int PARALLEL_MINIMUM_LINES = 16384; // smaller files run their second pass serially
+    public static final int MINIMUM_CHUNK_LINES = 1024; // lines of a chunk of a parallel second pass
+    public static final int CHUNKS_PER_THREAD = 4; // chunks a thread gets, so the work can be stolen
+    public static final int PIPELINE_MINIMUM_LINES = 16384; // smaller files classify their lines in the first pass
+    public static final int PIPELINE_BLOCK_LINES = 512; // lines a classifier claims at once
+    public static final int PIPELINE_RING_BLOCKS = 64; // blocks classified ahead of the first pass at most
+    public static final String PIPELINED_PASS_STRATEGY = "first pass classified ahead on %d threads, ";
+    public static final String SERIAL_PASS_STRATEGY = "serial second pass";
+    public static final String PARALLEL_PASS_STRATEGY = "parallel second pass over %d chunks";
+    public static final String MEMOIZED_CALLS_STRATEGY = ", memoized call shapes";
+    public static final String FULL_CALLS_STRATEGY = ", calls validated in full";
+
+    //main
+    public static final String VERBOSE_PROPERTY = "sjavac.verbose"; // -Dsjavac.verbose=true reports profiles
+    public static final String VERBOSE_REPORT = "%s: %s, strategy: %s, filtered lookups: %d";
+    public static final String BATCH_FLAG = "--batch"; // followed by paths, or none to read a manifest
+    public static final String MANIFEST_SEPARATOR = "\0"; // paths of a manifest are NUL-separated
+    public static final String BATCH_RESULT = "%s %d"; // path and return code
+    public static final String BATCH_MESSAGE = "%s: %s"; // path and error message
+    public static final String BATCH_SUMMARY = "%d files: %d valid, %d invalid, %d unreadable";
+    public static final String BATCH_STATS = "workers waited %d ms for I/O and verified for %d ms; " +
+            "reading took %d ms on %d I/O threads, queue depth %d";
+    public static final String QUEUE_DEPTH_PROPERTY = "sjavac.queueDepth"; // files found and waiting
+    public static final int QUEUE_DEPTH = 64;
+    public static final String IO_THREADS_PROPERTY = "sjavac.ioThreads"; // threads finding and reading files
+    public static final int IO_THREADS = 4;
+    public static final String MEMORY_BUDGET_PROPERTY = "sjavac.memoryBudget"; // megabytes for running files
+    public static final int MEMORY_BUDGET_PERCENT = 50; // of the maximum heap, unless the property is set
+    public static final int MEMORY_PER_SOURCE_BYTE = 8; // estimated heap bytes to verify a byte of source
+    public static final long AGING_BYTES_PER_FILE = 64L * 1024; // a file counts this much larger per later file
+    public static final long SMALL_FILE_BYTES = 16L * 1024; // smaller files are packed together
+    public static final long PACK_BYTES = 64L * 1024; // a pack of small files stops growing at this size
+    public static final int PACK_FILES = 32; // or at this many files
+    public static final int PACKS_PER_WORKER = 2; // one verifying and one being read
 }
\ No newline at end of file
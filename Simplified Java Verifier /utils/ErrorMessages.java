@@ -17,6 +17,7 @@ public class ErrorMessages {
 
     public static final String ILLEGAL_COMMENT = "Illegal comment line with leading whitespace: ";
     public static final String IO_ERROR = "I/O error: ";
+    public static final String INTERNAL_ERROR = "Internal error: ";
 
     public static final String RETURN_NOT_IN_VALID_SCOPE = "Return statements are not in method scope.";
     public static final String RETURN_IN_GLOBAL_SCOPE = "Return statements are not allowed outside of a " +
@@ -25,6 +26,7 @@ public class ErrorMessages {
     public static final String LINE_AFTER_RETURN_ILLEGAL = "The line following a return statement is not " +
             "allowed.";
     public static final String OPEN_SCOPE = "All scopes must be closed. ";
+    public static final String UNOPENED_SCOPE = "Closing a scope that was never opened.";
     public static final String INVALID_COMMENT = "Comments should not start with space";
 
 
@@ -43,7 +45,7 @@ public class ErrorMessages {
     //If While error messages
     public static final String CONDITION_OUTSIDE_METHOD = "A conditional statement must appear inside a" +
             " method.";
-    public static final String INVALID_CONDITION_SYNTAX = "Invalid condition syntax.";
+    public static final String INVALID_CONDITION_SYNTAX = "Invalid condition syntax at operand %d: %s";
     public static final String UNASSIGNED_VARIABLE = "Unassigned variable: ";
 
 
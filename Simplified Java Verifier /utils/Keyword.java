@@ -0,0 +1,114 @@
+package ex5.utils;
+
+/**
+ * The Keyword enum represents the reserved keywords of s-Java.
+ * It recognizes a keyword inside a line without creating a String for the word, so the line classifier and the
+ * validators share one keyword check.
+ */
+public enum Keyword {
+    INT(Constants.KEYWORD_INT),
+    DOUBLE(Constants.KEYWORD_DOUBLE),
+    BOOLEAN(Constants.KEYWORD_BOOLEAN),
+    CHAR(Constants.KEYWORD_CHAR),
+    STRING(Constants.KEYWORD_STRING),
+    VOID(Constants.KEYWORD_VOID),
+    FINAL(Constants.KEYWORD_FINAL),
+    IF(Constants.KEYWORD_IF),
+    WHILE(Constants.KEYWORD_WHILE),
+    RETURN(Constants.KEYWORD_RETURN);
+
+    private final String text;
+
+    /**
+     * Constructs a Keyword with the given text.
+     *
+     * @param text the keyword as written in s-Java.
+     */
+    Keyword(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Checks if the keyword is a variable type.
+     *
+     * @return true if the keyword is a variable type, false otherwise.
+     */
+    public boolean isType() {
+        return ordinal() <= STRING.ordinal();
+    }
+
+    /**
+     * Recognizes the keyword written in the given part of a line.
+     *
+     * @param line  the line containing the word.
+     * @param start the index of the first char of the word.
+     * @param end   the index after the last char of the word.
+     * @return the keyword, or null if the word is not a keyword.
+     */
+    public static Keyword recognize(CharSequence line, int start, int end) {
+        if (start >= end) {
+            return null;
+        }
+        Keyword candidate;
+        // at most two keywords share a first char, so dispatch on it
+        switch (line.charAt(start)) {
+            case 'i':
+                candidate = end - start == INT.text.length() ? INT : IF;
+                break;
+            case 'd':
+                candidate = DOUBLE;
+                break;
+            case 'b':
+                candidate = BOOLEAN;
+                break;
+            case 'c':
+                candidate = CHAR;
+                break;
+            case 'S':
+                candidate = STRING;
+                break;
+            case 'v':
+                candidate = VOID;
+                break;
+            case 'f':
+                candidate = FINAL;
+                break;
+            case 'w':
+                candidate = WHILE;
+                break;
+            case 'r':
+                candidate = RETURN;
+                break;
+            default:
+                return null;
+        }
+        return candidate.matches(line, start, end) ? candidate : null;
+    }
+
+    /**
+     * Checks if a name is a reserved keyword.
+     *
+     * @param name the name to check.
+     * @return true if the name is a reserved keyword, false otherwise.
+     */
+    public static boolean isReserved(CharSequence name) {
+        return recognize(name, 0, name.length()) != null;
+    }
+
+    private boolean matches(CharSequence line, int start, int end) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (line.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -24,8 +24,17 @@ public class ArgumentValidator {
             throw new InvalidFileException(ErrorMessages.INVALID_ARG_COUNT);
         }
 
-        String filePath = args[Constants.VALID_FILEPATH_POSITION];
+        return validatePath(args[Constants.VALID_FILEPATH_POSITION]);
+    }
 
+    /**
+     * Validates a single path, as given on the command line or listed for a batch run.
+     *
+     * @param filePath the path of the s-Java file.
+     * @return the validated file.
+     * @throws InvalidFileException if the path has the wrong extension or the file is not accessible.
+     */
+    public static File validatePath(String filePath) throws InvalidFileException {
         // Check file extension
         if (!filePath.endsWith(Constants.VALID_EXTENSION)) {
             throw new InvalidFileException(ErrorMessages.INVALID_FILE_EXTENSION + Constants.VALID_EXTENSION);
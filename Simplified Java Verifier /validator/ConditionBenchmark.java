@@ -0,0 +1,58 @@
+package ex5.validator;
+
+import ex5.context.Context;
+import ex5.context.VariableInfo;
+import ex5.context.VariableType;
+import ex5.exceptions.SjavacException;
+
+/**
+ * The ConditionBenchmark class measures how the validation of an if or while condition scales with the number
+ * of its operands, and prints the time spent per operand for each size. The time per operand stays about the
+ * same as the condition grows, as the condition is scanned once.
+ * The operands cycle through true, 1.5, -7 and a declared boolean variable, joined by "&&" and "||" in turn.
+ * Run it with: java ex5.validator.ConditionBenchmark
+ */
+class ConditionBenchmark {
+
+    private static final int[] OPERAND_COUNTS = {1_000, 10_000, 50_000, 100_000};
+    private static final String[] OPERANDS = {"true", "1.5", "-7", "flag"};
+    private static final String[] OPERATORS = {" && ", " || "};
+    private static final int OPERANDS_PER_SIZE = 20_000_000; // operands validated per size, once warmed up
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws SjavacException {
+        Context context = new Context();
+        context.addVariable(context.intern("flag"), VariableInfo.pack(false, VariableType.BOOLEAN, true), true, 1);
+        context.pushScope(); // a condition is only valid inside a method
+        System.out.println("operands    ns/operand");
+        for (int operandCount : OPERAND_COUNTS) {
+            String condition = condition(operandCount);
+            int repetitions = Math.max(1, OPERANDS_PER_SIZE / operandCount);
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                run(condition, context, repetitions);
+            }
+            long nanos = run(condition, context, repetitions);
+            System.out.println(String.format("%8d    %10.1f", operandCount,
+                    (double) nanos / repetitions / operandCount));
+        }
+    }
+
+    // a condition of the given number of operands
+    private static String condition(int operandCount) {
+        StringBuilder condition = new StringBuilder(OPERANDS[0]);
+        for (int i = 1; i < operandCount; i++) {
+            condition.append(OPERATORS[i % OPERATORS.length]).append(OPERANDS[i % OPERANDS.length]);
+        }
+        return condition.toString();
+    }
+
+    // validates the condition the given number of times, returning the nanoseconds it took
+    private static long run(String condition, Context context, int repetitions) throws SjavacException {
+        long start = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            IfWhileBlockValidator.validate(condition, context, 1);
+            context.popScope(); // the scope of the block validate opened
+        }
+        return System.nanoTime() - start;
+    }
+}
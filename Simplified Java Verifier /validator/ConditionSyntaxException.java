@@ -1,10 +1,11 @@
 package ex5.validator;
 import ex5.exceptions.SjavacException;
+import ex5.utils.ErrorMessages;
 
 import static ex5.utils.Constants.PARSING_ERROR;
 
 public class ConditionSyntaxException extends SjavacException {
-    public ConditionSyntaxException(String message) {
-        super(message, PARSING_ERROR);
+    public ConditionSyntaxException(String message, int lineNumber) {
+        super(ErrorMessages.formatLineNumber(lineNumber, message), PARSING_ERROR);
     }
 }
@@ -0,0 +1,239 @@
+package ex5.validator;
+
+import ex5.context.Context;
+
+import ex5.utils.Constants;
+import ex5.utils.ErrorMessages;
+
+import java.util.Arrays;
+
+/**
+ * The Declarators class parses the declarators of a variable declaration ("a, b = 5, c = x"), or the assignments
+ * of an assignment line, in a single scan.
+ * It keeps the span of every name and value in arrays that are reused from one line to the next, so parsing a
+ * line creates no String and no collection, however many declarators it has.
+ * A declarator without a value takes the value of the next declarator that has one, as in "int a, b = 5;".
+ */
+public class Declarators {
+
+    private static final int NO_VALUE = -1;
+
+    private CharSequence text;
+    private int count;
+    private int[] nameStarts;
+    private int[] nameEnds;
+    private int[] valueStarts; // NO_VALUE if neither the declarator nor any declarator after it has a value
+    private int[] valueEnds;
+    private int[] slots; // hash table of declarator index + 1 by name, 0 for an empty slot
+
+    /**
+     * Constructs an empty Declarators.
+     */
+    public Declarators() {
+        this.nameStarts = new int[Constants.INITIAL_DECLARATOR_CAPACITY];
+        this.nameEnds = new int[Constants.INITIAL_DECLARATOR_CAPACITY];
+        this.valueStarts = new int[Constants.INITIAL_DECLARATOR_CAPACITY];
+        this.valueEnds = new int[Constants.INITIAL_DECLARATOR_CAPACITY];
+        this.slots = new int[Constants.INITIAL_DECLARATOR_CAPACITY * 2];
+    }
+
+    /**
+     * Parses a comma separated list of declarators, each a variable name optionally followed by '=' and a value.
+     * A value is everything up to the next ',' without surrounding whitespace, and must not be blank.
+     *
+     * @param text            the declarators, starting with the first name and without the closing ';'.
+     * @param isValueRequired true if every declarator must have a value, as in an assignment.
+     * @return true if the text is a valid list of declarators, false otherwise.
+     */
+    public boolean parse(CharSequence text, boolean isValueRequired) {
+        this.text = text;
+        this.count = 0;
+        int end = text.length();
+        int pending = 0; // first declarator still waiting for a value
+        int index = 0;
+        while (true) {
+            int nameEnd = scanName(index, end);
+            if (nameEnd < 0) {
+                return false;
+            }
+            int next = skipWhiteSpace(nameEnd, end);
+            int valueStart = NO_VALUE;
+            int valueEnd = NO_VALUE;
+            if (next < end && text.charAt(next) == '=') {
+                valueStart = skipWhiteSpace(next + 1, end);
+                next = valueStart;
+                while (next < end && text.charAt(next) != ',' && text.charAt(next) != ';') {
+                    next++;
+                }
+                valueEnd = next;
+                while (valueEnd > valueStart && ValidatorHelper.isWhiteSpace(text.charAt(valueEnd - 1))) {
+                    valueEnd--;
+                }
+                if (valueEnd == valueStart) {
+                    return false;
+                }
+            } else if (isValueRequired) {
+                return false;
+            }
+            add(index, nameEnd, valueStart, valueEnd);
+            if (valueStart != NO_VALUE) {
+                // the declarators before this one without a value share it
+                for (int i = pending; i < count - 1; i++) {
+                    valueStarts[i] = valueStart;
+                    valueEnds[i] = valueEnd;
+                }
+                pending = count;
+            }
+            if (next == end) {
+                return true;
+            }
+            if (text.charAt(next) != ',') {
+                return false;
+            }
+            index = skipWhiteSpace(next + 1, end);
+        }
+    }
+
+    /**
+     * Checks that no variable name appears twice in the parsed declarators.
+     *
+     * @param lineNumber the line number of the declarators.
+     * @throws VariableDeclareTwiceException if a name appears twice, for the first repeated name.
+     */
+    public void checkDeclaredOnce(int lineNumber) throws VariableDeclareTwiceException {
+        int mask = tableSize() - 1;
+        Arrays.fill(slots, 0, mask + 1, 0);
+        for (int i = 0; i < count; i++) {
+            int slot = hashName(i) & mask;
+            while (slots[slot] != 0) {
+                if (isSameName(slots[slot] - 1, i)) {
+                    throw new VariableDeclareTwiceException(ErrorMessages.DOUBLE_DECLARATION + getName(i),
+                            lineNumber);
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Gets the number of parsed declarators.
+     *
+     * @return the number of declarators.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the variable name of a declarator.
+     *
+     * @param index the index of the declarator.
+     * @return the variable name.
+     */
+    public String getName(int index) {
+        return text.subSequence(nameStarts[index], nameEnds[index]).toString();
+    }
+
+    /**
+     * Gets the ID of the variable name of a declarator, without creating a String for a name seen before.
+     *
+     * @param index   the index of the declarator.
+     * @param context the context that assigns the IDs.
+     * @return the ID of the variable name.
+     */
+    public int getNameId(int index, Context context) {
+        return context.intern(text, nameStarts[index], nameEnds[index]);
+    }
+
+    /**
+     * Gets the value of a declarator.
+     *
+     * @param index the index of the declarator.
+     * @return the value, or null if the declarator is not initialized.
+     */
+    public String getValue(int index) {
+        if (valueStarts[index] == NO_VALUE) {
+            return null;
+        }
+        return text.subSequence(valueStarts[index], valueEnds[index]).toString();
+    }
+
+    private void add(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+        if (count == nameStarts.length) {
+            int capacity = count * 2;
+            nameStarts = Arrays.copyOf(nameStarts, capacity);
+            nameEnds = Arrays.copyOf(nameEnds, capacity);
+            valueStarts = Arrays.copyOf(valueStarts, capacity);
+            valueEnds = Arrays.copyOf(valueEnds, capacity);
+            slots = new int[capacity * 2];
+        }
+        nameStarts[count] = nameStart;
+        nameEnds[count] = nameEnd;
+        valueStarts[count] = valueStart;
+        valueEnds[count] = valueEnd;
+        count++;
+    }
+
+    /*
+     * Returns the end of the variable name ([a-zA-Z]+\w* or _+\w+) starting at the given index,
+     * or -1 if no name starts there.
+     */
+    private int scanName(int index, int end) {
+        if (index >= end || !isNameStart(text.charAt(index))) {
+            return -1;
+        }
+        int nameEnd = index + 1;
+        while (nameEnd < end && (isNameStart(text.charAt(nameEnd)) || isDigit(text.charAt(nameEnd)))) {
+            nameEnd++;
+        }
+        // a name starting with '_' needs another character after it
+        return text.charAt(index) == '_' && nameEnd - index < 2 ? -1 : nameEnd;
+    }
+
+    // the smallest power of two with room for twice the declarators
+    private int tableSize() {
+        int size = Constants.INITIAL_DECLARATOR_CAPACITY;
+        while (size < count * 2) {
+            size *= 2;
+        }
+        return size;
+    }
+
+    private int hashName(int index) {
+        int hash = 0;
+        for (int i = nameStarts[index]; i < nameEnds[index]; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean isSameName(int first, int second) {
+        int length = nameEnds[first] - nameStarts[first];
+        if (length != nameEnds[second] - nameStarts[second]) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(nameStarts[first] + i) != text.charAt(nameStarts[second] + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int skipWhiteSpace(int index, int end) {
+        while (index < end && ValidatorHelper.isWhiteSpace(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isNameStart(char character) {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z')
+                || character == '_';
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+}
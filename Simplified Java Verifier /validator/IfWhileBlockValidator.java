@@ -1,14 +1,11 @@
 package ex5.validator;
 
 import ex5.context.Context;
+import ex5.context.VariableHandle;
 import ex5.context.VariableType;
 //import ex5.exceptions.*;
 import ex5.utils.Constants;
 import ex5.utils.ErrorMessages;
-import ex5.utils.RegexPatterns;
-
-import java.util.ArrayList;
-import java.util.regex.Matcher;
 
 // ===========================================
 // NOTE: Validators are responsible for both:
@@ -18,6 +15,12 @@ import java.util.regex.Matcher;
 
 /**
  * Validator for handling if and while -block declarations in s-Java files.
+ * A condition is one or more operands (true, false, a variable, an int or a double constant) separated by
+ * "&&" or "||". It is scanned by hand once, checking its syntax and its variables together, so the time spent
+ * on a condition grows linearly with its length. A bad variable is reported only once the whole condition
+ * proved well formed, so a syntax error after it is still the one reported. The condition of an ASCII line is
+ * a view over the file, and its variables are looked up by the ID of their span, so only an error message
+ * copies its text into a String. ConditionBenchmark measures the scan on long conditions.
  */
 public class IfWhileBlockValidator {
 
@@ -25,11 +28,11 @@ public class IfWhileBlockValidator {
     /**
      * Validates an if and while -block line and updates the context.
      *
-     * @param line    the line containing the if-block declaration.
+     * @param condition the text between the parentheses of the if-block declaration.
      * @param context the current context, used to track scopes.
      * @return true if the if-block declaration is valid, false otherwise.
      */
-    public static boolean validate(String line, Context context, int lineNumber)
+    public static boolean validate(CharSequence condition, Context context, int lineNumber)
             throws ConditionSyntaxException, IfWhileInGlobalException, UnAssignedVariableException,
             VariableNotDefinedException, IncompatibleTypeException {
 
@@ -37,44 +40,121 @@ public class IfWhileBlockValidator {
         if(context.isInGlobalScope()){
             throw new IfWhileInGlobalException(ErrorMessages.CONDITION_OUTSIDE_METHOD, lineNumber);
         }
-        //check that the internal expression is a valid condition
-        String expression = extractCondition(line);
-        Matcher syntaxMatcher = RegexPatterns.CONDITION_SYNTAX.matcher(expression);
-        if(!syntaxMatcher.matches()){
-           throw new ConditionSyntaxException(ErrorMessages.INVALID_CONDITION_SYNTAX);
+        // trim the whitespace skipped between operands
+        int end = condition.length();
+        int start = skipWhiteSpace(condition, 0, end);
+        while (end > start && ValidatorHelper.isWhiteSpace(condition.charAt(end - 1))) {
+            end--;
         }
-        //extract all variables in the condition
-        String[] booleans = expression.split(Constants.AND_OR_SEPARATOR);
-        for (String bool:booleans){
-            bool = bool.trim();
-            Matcher boolMatcher = RegexPatterns.VARIABLE_NAME_PATTERN.matcher(bool);
-            if(boolMatcher.matches() && ((!bool.equals(Constants.TRUE_CONSTANT)) &&
-                    !bool.equals(Constants.FALSE_CONSTANT))){
-                //check that the var is declared
-                if(!context.isVariableDeclared(bool)){
-                    throw new VariableNotDefinedException(ErrorMessages.VARIABLE_NOT_DEFINED, lineNumber);
-                }
-                //check the type is boolean / double / int
-                if(context.getVariableType(bool)!= VariableType.BOOLEAN &&
-                        context.getVariableType(bool)!= VariableType.INT &&
-                        context.getVariableType(bool)!= VariableType.DOUBLE){
-                    throw new IncompatibleTypeException(ErrorMessages.INCOMPATIBLE_TYPE, lineNumber);
+        //check that the internal expression is a valid condition, and find the first bad variable in it
+        VariableHandle badVariable = null;
+        int operandNumber = 1;
+        int index = start;
+        while (true) {
+            int operandStart = skipWhiteSpace(condition, index, end);
+            int operandEnd = scanOperand(condition, operandStart, end);
+            int next = operandEnd < 0 ? -1 : skipWhiteSpace(condition, operandEnd, end);
+            if (next >= 0 && badVariable == null && isVariableStart(condition.charAt(operandStart))
+                    && !LiteralClassifier.isBooleanLiteral(condition, operandStart, operandEnd)) {
+                VariableHandle handle = context.resolve(condition, operandStart, operandEnd);
+                if (!isValidVariable(handle)) {
+                    badVariable = handle;
                 }
-                // check it is assigned
-                if(context.isVariableUninitialized(bool)){
-                    throw new UnAssignedVariableException(ErrorMessages.UNASSIGNED_VARIABLE + bool, lineNumber);
-                }
-
             }
+            if (next == end) {
+                break;
+            }
+            if (next < 0 || !isOperator(condition, next, end)) {
+                throw new ConditionSyntaxException(String.format(ErrorMessages.INVALID_CONDITION_SYNTAX,
+                        operandNumber, badOperand(condition, operandStart, end)), lineNumber);
+            }
+            index = next + Constants.OPERATOR_LENGTH;
+            operandNumber++;
+        }
+        if (badVariable != null) {
+            validateVariable(badVariable, context, lineNumber);
         }
         context.pushScope();
         return true;
     }
 
-    private static String extractCondition(String line) {
-        String expression = line.replaceFirst(Constants.CONDITION_START, Constants.EMPTY_STRING);
-        expression = expression.replaceAll(Constants.CLOSE_BOOLEAN_EXPRESSION, Constants.EMPTY_STRING);
-        expression = expression.trim();
-        return expression;
+    // whether a variable may be used in a condition: declared, of a type fitting a boolean, and assigned
+    private static boolean isValidVariable(VariableHandle handle) {
+        return handle.isDeclared() && VariableType.BOOLEAN.accepts(handle.getType()) && !handle.isUninitialized();
+    }
+
+    private static void validateVariable(VariableHandle handle, Context context, int lineNumber)
+            throws VariableNotDefinedException, IncompatibleTypeException, UnAssignedVariableException {
+        //check that the var is declared
+        if(!handle.isDeclared()){
+            throw new VariableNotDefinedException(ErrorMessages.VARIABLE_NOT_DEFINED, lineNumber);
+        }
+        //check the type fits a boolean (boolean / double / int)
+        if(!VariableType.BOOLEAN.accepts(handle.getType())){
+            throw new IncompatibleTypeException(ErrorMessages.INCOMPATIBLE_TYPE, lineNumber);
+        }
+        // check it is assigned
+        if(handle.isUninitialized()){
+            throw new UnAssignedVariableException(ErrorMessages.UNASSIGNED_VARIABLE + context.getName(handle.getId()),
+                    lineNumber);
+        }
+    }
+
+    /*
+     * Returns the end of the operand starting at the given index, or -1 if no operand starts there.
+     * An operand is true, false, a variable name ([a-zA-Z]+\w* or _+\w+), an int ([+-]?\d+)
+     * or a double ([+-]?(\d+(\.\d*)?|\.\d+)).
+     */
+    private static int scanOperand(CharSequence condition, int index, int end) {
+        if (index >= end) {
+            return -1;
+        }
+        char first = condition.charAt(index);
+        if (isVariableStart(first)) {
+            int wordEnd = skipWord(condition, index, end);
+            // a name starting with '_' needs another character after it
+            return first == '_' && wordEnd - index < 2 ? -1 : wordEnd;
+        }
+        return LiteralClassifier.scanNumber(condition, index, end);
+    }
+
+    private static boolean isOperator(CharSequence condition, int index, int end) {
+        if (index + 1 >= end) {
+            return false;
+        }
+        char first = condition.charAt(index);
+        return (first == '&' || first == '|') && condition.charAt(index + 1) == first;
+    }
+
+    // the text from the given index up to the next operator, without surrounding whitespace
+    private static String badOperand(CharSequence condition, int start, int end) {
+        int operandEnd = start;
+        while (operandEnd < end && !isOperator(condition, operandEnd, end)) {
+            operandEnd++;
+        }
+        while (operandEnd > start && ValidatorHelper.isWhiteSpace(condition.charAt(operandEnd - 1))) {
+            operandEnd--;
+        }
+        return condition.subSequence(start, operandEnd).toString();
+    }
+
+    private static boolean isVariableStart(char character) {
+        return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z')
+                || character == '_';
+    }
+
+    private static int skipWhiteSpace(CharSequence condition, int index, int end) {
+        while (index < end && ValidatorHelper.isWhiteSpace(condition.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipWord(CharSequence condition, int index, int end) {
+        while (index < end && (isVariableStart(condition.charAt(index))
+                || (condition.charAt(index) >= '0' && condition.charAt(index) <= '9'))) {
+            index++;
+        }
+        return index;
     }
-}
\ No newline at end of file
+}
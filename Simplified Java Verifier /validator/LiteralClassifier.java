@@ -0,0 +1,157 @@
+package ex5.validator;
+
+import ex5.context.VariableType;
+import ex5.utils.Constants;
+
+/**
+ * The LiteralClassifier class identifies s-Java literals without regular expressions.
+ * It reads a value once and returns a bitmask of the variable types the value can be assigned to, taken from
+ * the assignability matrix of VariableType: an int literal fits int, double and boolean, a double literal fits
+ * double and boolean, true and false fit boolean, a String literal fits String and a char literal fits char.
+ */
+public class LiteralClassifier {
+
+    /**
+     * The bitmask of a value that is not a literal.
+     */
+    public static final int NOT_A_LITERAL = 0;
+
+    private static final int INT_TYPES = VariableType.acceptingTypes(VariableType.INT);
+    private static final int DOUBLE_TYPES = VariableType.acceptingTypes(VariableType.DOUBLE);
+    private static final int BOOLEAN_TYPES = VariableType.acceptingTypes(VariableType.BOOLEAN);
+    private static final int STRING_TYPES = VariableType.acceptingTypes(VariableType.STRING);
+    private static final int CHAR_TYPES = VariableType.acceptingTypes(VariableType.CHAR);
+    private static final int CHAR_LITERAL_LENGTH = 3;
+
+    private LiteralClassifier() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Identifies the literal in the given value.
+     *
+     * @param value the value, without surrounding whitespace.
+     * @return the bitmask of the types the value can be assigned to, or NOT_A_LITERAL.
+     */
+    public static int classify(CharSequence value) {
+        return classify(value, 0, value.length());
+    }
+
+    /**
+     * Identifies the literal in a span of a text.
+     *
+     * @param text  the text holding the value.
+     * @param start the start of the value, after any leading whitespace.
+     * @param end   the end of the value, before any trailing whitespace.
+     * @return the bitmask of the types the value can be assigned to, or NOT_A_LITERAL.
+     */
+    public static int classify(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return NOT_A_LITERAL;
+        }
+        switch (text.charAt(start)) {
+            case '"':
+                // "[^"]*"
+                for (int i = start + 1; i < end - 1; i++) {
+                    if (text.charAt(i) == '"') {
+                        return NOT_A_LITERAL;
+                    }
+                }
+                return length > 1 && text.charAt(end - 1) == '"' ? STRING_TYPES : NOT_A_LITERAL;
+            case '\'':
+                // '[^']'
+                return length == CHAR_LITERAL_LENGTH && text.charAt(start + 1) != '\''
+                        && text.charAt(start + 2) == '\'' ? CHAR_TYPES : NOT_A_LITERAL;
+            case 't':
+            case 'f':
+                return isBooleanLiteral(text, start, end) ? BOOLEAN_TYPES : NOT_A_LITERAL;
+            default:
+                return classifyNumber(text, start, end);
+        }
+    }
+
+    /**
+     * Checks if a value with the given bitmask can be assigned to a variable of the given type.
+     *
+     * @param types the bitmask returned by classify.
+     * @param type  the type of the variable.
+     * @return true if the value fits the type, false otherwise.
+     */
+    public static boolean fits(int types, VariableType type) {
+        return (types & bit(type)) != 0;
+    }
+
+    /**
+     * Checks if a span of a text is true or false.
+     *
+     * @param text  the text holding the span.
+     * @param start the start of the span.
+     * @param end   the end of the span.
+     * @return true if the span is a boolean literal, false otherwise.
+     */
+    public static boolean isBooleanLiteral(CharSequence text, int start, int end) {
+        return isWord(text, start, end, Constants.TRUE_CONSTANT)
+                || isWord(text, start, end, Constants.FALSE_CONSTANT);
+    }
+
+    /**
+     * Scans an int ([+-]?\d+) or a double ([+-]?(\d+(\.\d*)?|\.\d+)) starting at the given index.
+     *
+     * @param text  the text to scan.
+     * @param index the index the number starts at.
+     * @param end   the index to stop scanning at.
+     * @return the end of the number, or -1 if no number starts at the index.
+     */
+    public static int scanNumber(CharSequence text, int index, int end) {
+        if (index < end && (text.charAt(index) == '+' || text.charAt(index) == '-')) {
+            index++;
+        }
+        int digitsEnd = skipDigits(text, index, end);
+        boolean hasIntegerPart = digitsEnd > index;
+        if (digitsEnd < end && text.charAt(digitsEnd) == '.') {
+            int fractionEnd = skipDigits(text, digitsEnd + 1, end);
+            return hasIntegerPart || fractionEnd > digitsEnd + 1 ? fractionEnd : -1;
+        }
+        return hasIntegerPart ? digitsEnd : -1;
+    }
+
+    // [+-]?\d+ is an int, [+-]?(\d+\.\d*|\.\d+) is a double
+    private static int classifyNumber(CharSequence text, int start, int end) {
+        int index = text.charAt(start) == '+' || text.charAt(start) == '-' ? start + 1 : start;
+        int digitsEnd = skipDigits(text, index, end);
+        boolean hasIntegerPart = digitsEnd > index;
+        if (digitsEnd == end) {
+            return hasIntegerPart ? INT_TYPES : NOT_A_LITERAL;
+        }
+        if (text.charAt(digitsEnd) != '.') {
+            return NOT_A_LITERAL;
+        }
+        int fractionEnd = skipDigits(text, digitsEnd + 1, end);
+        return fractionEnd == end && (hasIntegerPart || fractionEnd > digitsEnd + 1)
+                ? DOUBLE_TYPES : NOT_A_LITERAL;
+    }
+
+    private static int bit(VariableType type) {
+        return 1 << type.ordinal();
+    }
+
+    private static boolean isWord(CharSequence text, int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (text.charAt(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipDigits(CharSequence text, int index, int end) {
+        while (index < end && text.charAt(index) >= '0' && text.charAt(index) <= '9') {
+            index++;
+        }
+        return index;
+    }
+}
@@ -1,23 +1,17 @@
 package ex5.validator;
 
+import ex5.context.CallShapeMemo;
 import ex5.context.Context;
 import ex5.context.MethodInfo;
-import ex5.context.Parameter;
+import ex5.context.VariableHandle;
 import ex5.context.VariableType;
 //import ex5.exceptions.InvalidParameterException;
 //import ex5.exceptions.MethodCallException;
 //import ex5.exceptions.MethodCallInvalidParametersException;
 import ex5.exceptions.SjavacException;
-import ex5.utils.Constants;
 import ex5.utils.ErrorMessages;
-import ex5.utils.RegexPatterns;
-
-import java.util.List;
-import java.util.regex.Matcher;
 
 import static ex5.utils.ErrorMessages.*;
-import static ex5.utils.RegexPatterns.METHOD_CALL_PATTERN;
-import static ex5.utils.RegexPatterns.METHOD_DECLARATION_PATTERN;
 
 /**
  * Validator for handling method calls in s-Java files.
@@ -26,9 +20,17 @@ import static ex5.utils.RegexPatterns.METHOD_DECLARATION_PATTERN;
  *     Ensuring the method exists in the context.
  *     Checking that the parameters in the call match the method's declaration.
  *     Updating the program context if validation passes.
+ * The parameters are read in place from the call's text. When the context memoizes calls, every call shape
+ * that passes is remembered, so a later call of the same method with the same kinds of parameters skips the
+ * signature checks.
  */
 public class MethodCallValidator {
 
+    private static final long NO_PARAMETERS_SHAPE = 0L;
+    private static final long UNKNOWN_SHAPE = -1L; // no shape has every byte set
+    private static final int VARIABLE_KIND = 0x80; // literal bitmasks never reach this bit
+    private static final int MAXIMUM_SHAPE_PARAMETERS = Long.SIZE / Byte.SIZE;
+
     /**
      * Validates a method call line and ensures it complies with the method's signature.
      * This method performs the following checks:
@@ -36,13 +38,15 @@ public class MethodCallValidator {
      *     Checks if the method exists in the context.
      *     Validates the number and types of parameters provided in the call.
      * If all checks pass, the method call is considered valid.
-     * @param line       the line containing the method call.
+     * @param methodId      the ID of the name of the called method.
+     * @param parameterList the text between the parentheses of the call.
      * @param context    the current context, used to track methods and variables.
      * @param lineNumber the line number in the source file for error reporting.
      * @return true if the method call is valid, false otherwise.
      * @throws SjavacException if any validation fails.
      */
-    public static boolean validate( String line, Context context, int lineNumber) throws SjavacException {
+    public static boolean validate(int methodId, CharSequence parameterList, Context context,
+                                   int lineNumber) throws SjavacException {
 
         //todo: check function exists
 
@@ -50,54 +54,153 @@ public class MethodCallValidator {
         if (context.isInGlobalScope()) {
             throw new MethodCallException(lineNumber, GLOBAL_METHOD_CALL);
         }
-        Matcher matcher = METHOD_CALL_PATTERN.matcher(line);
-        matcher.matches();
-        // Extract method name and parameter list
-        String methodName = matcher.group(Constants.METHOD_NAME_POSITION); // Group 1: Method name
-        String parameterList = matcher.group(Constants.PARAMETER_LIST_POSITION); // Group 2: Parameter list
-
         // Validate comma usage
         //validateCommaUsage(parameterList,lineNumber);
 
         // Check if the method exists
         // Retrieve method information
-        MethodInfo methodInfo = context.getMethod(methodName, lineNumber);
-        List<Parameter> declaredParameters = methodInfo.getParameters();
+        MethodInfo methodInfo = context.getMethod(methodId, lineNumber);
+        VariableType[] declaredTypes = methodInfo.getParameterTypes();
 
-        // Split and count parameters in the call
-        String[] callParameters = ValidatorHelper.splitParameterList(parameterList);
+        // A shape that passed before only needs its variables checked for initialization
+        boolean hasNoParameters = skipWhiteSpace(parameterList, 0) == parameterList.length();
+        CallShapeMemo callShapes = context.getCallShapes();
+        long shape;
+        if (callShapes == null) {
+            shape = UNKNOWN_SHAPE;
+        } else {
+            shape = hasNoParameters ? NO_PARAMETERS_SHAPE : callShape(parameterList, context);
+        }
+        if (shape != UNKNOWN_SHAPE && callShapes.contains(methodId, shape)) {
+            validateInitialized(parameterList, shape, context, lineNumber);
+            return true;
+        }
 
-        for (String param : callParameters) {
-            validateParameter(param.trim(), lineNumber);
+        // Count the parameters in the call, none of which may be empty
+        int callParameterCount = 0;
+        if (!hasNoParameters) {
+            for (int start = 0; start <= parameterList.length(); start = parameterEnd(parameterList, start) + 1) {
+                validateParameter(parameterList, start, lineNumber);
+                callParameterCount++;
+            }
         }
 
         // Validate parameter count
-        validateParameterCount(methodName, lineNumber, declaredParameters.size(), callParameters.length);
+        validateParameterCount(methodInfo.getName(), lineNumber, declaredTypes.length, callParameterCount);
 
         // Validate parameter types
-        for (int i = 0; i < callParameters.length; i++) {
-            String callParameter = callParameters[i].trim();
-            Parameter expectedParameter = declaredParameters.get(i);
+        int start = 0;
+        for (int i = 0; i < callParameterCount; i++) {
+            int end = parameterEnd(parameterList, start);
+            int valueStart = skipWhiteSpace(parameterList, start);
+            int valueEnd = trimEnd(parameterList, valueStart, end);
 
             // Determine if the parameter is a constant or variable
-            if (isConstant(callParameter)) {
-                validateConstantType(callParameter, expectedParameter.getType(), lineNumber);
+            int literalTypes = LiteralClassifier.classify(parameterList, valueStart, valueEnd);
+            if (literalTypes != LiteralClassifier.NOT_A_LITERAL) {
+                validateConstantType(parameterList.subSequence(valueStart, valueEnd).toString(), literalTypes,
+                        declaredTypes[i], lineNumber);
             } else {
-                validateVariableType(callParameter, expectedParameter.getType(), context, lineNumber);
+                validateVariableType(parameterList, valueStart, valueEnd, declaredTypes[i], context, lineNumber);
             }
+            start = end + 1;
         }
 
-
+        if (shape != UNKNOWN_SHAPE) {
+            callShapes.add(methodId, shape);
+        }
         return true;
     }
 
-    private static void validateParameter(String param, int lineNumber) throws InvalidParameterException {
+    /**
+     * Packs the kinds of the parameters of a call into a shape, one byte per parameter: the literal bitmask
+     * for a constant, or VARIABLE_KIND with the type's ordinal for a declared variable.
+     *
+     * @param parameterList the text between the parentheses of the call, holding at least one parameter.
+     * @param context       the current context, used to resolve variables.
+     * @return the shape of the call, or UNKNOWN_SHAPE if it has too many parameters, an empty parameter or an
+     * undeclared variable, which the full validation reports.
+     */
+    private static long callShape(CharSequence parameterList, Context context) {
+        long shape = NO_PARAMETERS_SHAPE;
+        int count = 0;
+        for (int start = 0; start <= parameterList.length(); start = parameterEnd(parameterList, start) + 1) {
+            if (++count > MAXIMUM_SHAPE_PARAMETERS) {
+                return UNKNOWN_SHAPE;
+            }
+            int end = parameterEnd(parameterList, start);
+            int valueStart = skipWhiteSpace(parameterList, start);
+            int valueEnd = trimEnd(parameterList, valueStart, end);
+            if (valueStart == valueEnd) {
+                return UNKNOWN_SHAPE;
+            }
+            int kind = LiteralClassifier.classify(parameterList, valueStart, valueEnd);
+            if (kind == LiteralClassifier.NOT_A_LITERAL) {
+                VariableHandle variable = context.resolve(parameterList, valueStart, valueEnd);
+                if (!variable.isDeclared()) {
+                    return UNKNOWN_SHAPE;
+                }
+                kind = VARIABLE_KIND | variable.getType().ordinal();
+            }
+            shape = (shape << Byte.SIZE) | kind;
+        }
+        return shape;
+    }
+
+    // checks the variables of a call whose shape already passed validation are initialized
+    private static void validateInitialized(CharSequence parameterList, long shape, Context context,
+                                            int lineNumber) throws MethodCallException {
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(shape) - 1;
+        shift -= shift % Byte.SIZE; // the first parameter is in the highest non-zero byte
+        for (int start = 0; shift >= 0; start = parameterEnd(parameterList, start) + 1, shift -= Byte.SIZE) {
+            if ((shape >>> shift & VARIABLE_KIND) == 0) {
+                continue;
+            }
+            int valueStart = skipWhiteSpace(parameterList, start);
+            int valueEnd = trimEnd(parameterList, valueStart, parameterEnd(parameterList, start));
+            VariableHandle variable = context.resolve(parameterList, valueStart, valueEnd);
+            if (variable.isUninitialized()) {
+                throw new MethodCallException(
+                        lineNumber,
+                        String.format(ErrorMessages.VARIABLE_NOT_INITIALIZED, context.getName(variable.getId()))
+                );
+            }
+        }
+    }
+
+    private static void validateParameter(CharSequence parameterList, int start, int lineNumber)
+            throws InvalidParameterException {
         // Check if the parameter is empty
-        if (param == null || param.trim().isEmpty()) {
+        int end = parameterEnd(parameterList, start);
+        if (skipWhiteSpace(parameterList, start) == end) {
             throw new InvalidParameterException(EMPTY_PARAMETER, lineNumber);
         }
     }
 
+    // the index of the comma ending the parameter starting at the given index, or the end of the list
+    private static int parameterEnd(CharSequence parameterList, int start) {
+        int index = start;
+        while (index < parameterList.length() && parameterList.charAt(index) != ',') {
+            index++;
+        }
+        return index;
+    }
+
+    // skips the characters String.trim removes
+    private static int skipWhiteSpace(CharSequence text, int index) {
+        while (index < text.length() && text.charAt(index) <= ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    private static int trimEnd(CharSequence text, int start, int end) {
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
     private static void validateParameterCount(
             String methodName, int lineNumber, int expected, int actual)
             throws MethodCallInvalidParametersException {
@@ -106,53 +209,34 @@ public class MethodCallValidator {
         }
     }
 
-    private static boolean isConstant(String parameter) {
-        return RegexPatterns.INT_PATTERN.matcher(parameter).matches() ||
-                RegexPatterns.DOUBLE_PATTERN.matcher(parameter).matches() ||
-                RegexPatterns.STRING_PATTERN.matcher(parameter).matches() ||
-                RegexPatterns.CHAR_CONSTANT.matcher(parameter).matches()||
-                (isBoolean(parameter));
-    }
-
-    private static void validateConstantType(String parameter, VariableType expectedType, int lineNumber)
-            throws MethodCallException {
+    private static void validateConstantType(String parameter, int literalTypes, VariableType expectedType,
+                                             int lineNumber) throws MethodCallException {
+        if (LiteralClassifier.fits(literalTypes, expectedType)) {
+            return;
+        }
         switch (expectedType) {
             case INT:
-                if (!RegexPatterns.INT_PATTERN.matcher(parameter).matches()) {
-                    throw new MethodCallException(lineNumber, ErrorMessages.EXPECTED_INT + parameter);
-                }
-                break;
+                throw new MethodCallException(lineNumber, ErrorMessages.EXPECTED_INT + parameter);
             case DOUBLE:
-                if (!RegexPatterns.DOUBLE_PATTERN.matcher(parameter).matches()) {
-                    throw new MethodCallException(lineNumber, ErrorMessages.EXPECTED_DOUBLE + parameter);
-                }
-                break;
+                throw new MethodCallException(lineNumber, ErrorMessages.EXPECTED_DOUBLE + parameter);
             case STRING:
-                if (!RegexPatterns.STRING_PATTERN.matcher(parameter).matches()) {
-                    throw new MethodCallException(lineNumber, ErrorMessages.EXPECTED_STRING + parameter);
-                }
-                break;
+                throw new MethodCallException(lineNumber, ErrorMessages.EXPECTED_STRING + parameter);
             case CHAR:
-                if (!RegexPatterns.CHAR_CONSTANT.matcher(parameter).matches()) {
-                    throw new MethodCallException(lineNumber, ErrorMessages.EXPECTED_CHAR + parameter);
-                }
-                break;
+                throw new MethodCallException(lineNumber, ErrorMessages.EXPECTED_CHAR + parameter);
             case BOOLEAN:
-                if ( !RegexPatterns.INT_PATTERN.matcher(parameter).matches()
-                && !RegexPatterns.DOUBLE_PATTERN.matcher(parameter).matches()
-                    && !isBoolean(parameter)) {
-                    throw new MethodCallException(lineNumber, ErrorMessages.EXPECTED_BOOLEAN + parameter);
-                }
-                break;
+                throw new MethodCallException(lineNumber, ErrorMessages.EXPECTED_BOOLEAN + parameter);
             default:
                 throw new MethodCallException(lineNumber, ErrorMessages.UNEXPECTED_CONSTANT_TYPE + expectedType);
         }
     }
 
-    private static void validateVariableType(String variableName, VariableType expectedType, Context context,
+    private static void validateVariableType(CharSequence parameterList, int start, int end,
+                                             VariableType expectedType, Context context,
                                              int lineNumber) throws SjavacException, MethodCallException {
+        String variableName = parameterList.subSequence(start, end).toString();
+        VariableHandle variable = context.resolve(parameterList, start, end);
         // Ensure the variable is declared
-        if (!context.isVariableDeclared(variableName)) {
+        if (!variable.isDeclared()) {
             throw new MethodCallException(
                     lineNumber,
                     String.format(ErrorMessages.VARIABLE_NOT_DECLARED, variableName)
@@ -160,7 +244,7 @@ public class MethodCallValidator {
         }
 
         // Ensure the variable is initialized
-        if (context.isVariableUninitialized(variableName)) {
+        if (variable.isUninitialized()) {
             throw new MethodCallException(
                     lineNumber,
                     String.format(ErrorMessages.VARIABLE_NOT_INITIALIZED, variableName)
@@ -168,8 +252,8 @@ public class MethodCallValidator {
         }
 
         // Validate the variable type
-        VariableType actualType = context.getVariableType(variableName);
-        if (!actualType.equals(expectedType)) {
+        VariableType actualType = variable.getType();
+        if (!expectedType.accepts(actualType)) {
             throw new MethodCallException(
                     lineNumber,
                     String.format(ErrorMessages.TYPE_MISMATCH, variableName, expectedType, actualType)
@@ -177,9 +261,5 @@ public class MethodCallValidator {
         }
     }
 
-    private static Boolean isBoolean(String parameter) {
-        return parameter.equals(Constants.TRUE_CONSTANT)||parameter.equals(Constants.FALSE_CONSTANT);
-    }
-
 
 }
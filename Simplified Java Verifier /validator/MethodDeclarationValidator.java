@@ -7,14 +7,12 @@ import ex5.context.VariableType;
 import ex5.exceptions.SjavacException;
 import ex5.utils.Constants;
 import ex5.utils.ErrorMessages;
+import ex5.utils.Keyword;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
 
-import static ex5.utils.Constants.RESERVED_KEYWORDS;
 import static ex5.utils.ErrorMessages.*;
 import static ex5.utils.RegexPatterns.*;
 
@@ -32,14 +30,15 @@ public class MethodDeclarationValidator {
     /**
      * Validates a method declaration line and updates the context.
      *
-     * @param line    the line containing the method declaration.
+     * @param methodId      the ID of the name of the declared method.
+     * @param parameterList the text between the parentheses of the declaration.
      * @param context the current context, used to track methods.
      * @return true if the method declaration is valid, false otherwise.
      *
      */
 
-    public static boolean validate(String line, Context context, int lineNumber, boolean isMethodRun)
-            throws SjavacException {
+    public static boolean validate(int methodId, CharSequence parameterList, Context context,
+                                   int lineNumber, boolean isMethodRun) throws SjavacException {
         // Log for now to test delegation
 //        System.out.println("Validating method declaration: " + line);
 
@@ -47,22 +46,19 @@ public class MethodDeclarationValidator {
         if (!context.isInGlobalScope()) {
             throw new InvalidMethodDeclarationException(lineNumber, METHOD_INSIDE_METHOD);
         }
-        Matcher matcher = METHOD_DECLARATION_PATTERN.matcher(line);
-        matcher.matches();
-        String methodName = matcher.group(Constants.METHOD_NAME_POSITION); // Group 1: Method name
         if (isMethodRun) {
+            String methodName = context.getName(methodId);
             // Validate method name
             validateNameNotReserved(methodName,
                     () -> new InvalidMethodDeclarationException(lineNumber, METHOD_RESERVED_WORD
                             + methodName));
 
-            String parameterList = matcher.group(Constants.PARAMETER_LIST_POSITION); // Group 2: Parameter list
             List<Parameter> parameterObjects = new ArrayList<>();
 
             // Split and validate parameters
-            String[] parameters = ValidatorHelper.splitParameterList(parameterList);
+            String[] parameters = ValidatorHelper.splitParameterList(parameterList.toString());
             for (String param : parameters) {
-                Parameter parameter = validateParameter(param.trim(), lineNumber);
+                Parameter parameter = validateParameter(param.trim(), context, lineNumber);
                 parameterObjects.add(parameter);
             }
 
@@ -71,18 +67,19 @@ public class MethodDeclarationValidator {
             MethodInfo methodInfo = new MethodInfo(methodName, parameterObjects);
 
             // Add to the global context
-            context.addMethod(methodName, methodInfo);
+            context.addMethod(methodId, methodInfo);
         }
 
 
         if (!isMethodRun) {
             // Push a new scope for the method and add parameters
-            context.pushMethodScope(context.getMethod(methodName,lineNumber).getParameters(), lineNumber);
+            context.pushMethodScope(context.getMethod(methodId, lineNumber).getParameters(), lineNumber);
         }
         return true;
     }
 
-    private static Parameter validateParameter(String param, int lineNumber) throws SjavacException {
+    private static Parameter validateParameter(String param, Context context, int lineNumber)
+            throws SjavacException {
         //Todo: check there is already a parameter with this name
 
         // Check if the parameter is empty
@@ -122,7 +119,7 @@ public class MethodDeclarationValidator {
         validateParameterName(name,lineNumber);
 
         // Create and return the Parameter object
-        return new Parameter(name, type, isFinal);
+        return new Parameter(name, context.intern(name), type, isFinal);
 
     }
 
@@ -145,7 +142,7 @@ public class MethodDeclarationValidator {
 
 
     private static boolean isReservedKeyword(String name) {
-        return Arrays.asList(RESERVED_KEYWORDS).contains(name);
+        return Keyword.isReserved(name);
     }
 
 }
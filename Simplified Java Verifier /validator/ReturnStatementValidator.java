@@ -18,11 +18,10 @@ public class ReturnStatementValidator {
     /**
      * Validates a return statement line.
      *
-     * @param line    the line containing the return statement.
      * @param context the current context, used to check scope and method state.
      * @return true if the return statement is valid, false otherwise.
      */
-    public static boolean validate(String line, Context context, int lineNumber)
+    public static boolean validate(Context context, int lineNumber)
             throws InvalidReturnPositionException {
         // Log for now to test delegation
 //        System.out.println("Validating return statement: " + line);
@@ -37,6 +37,17 @@ public class ValidatorHelper {
         return paramList;
     }
 
+    /**
+     * Checks if a character is whitespace, as matched by \s in a regular expression.
+     *
+     * @param character the character to check.
+     * @return true if the character is whitespace, false otherwise.
+     */
+    public static boolean isWhiteSpace(char character) {
+        return character == ' ' || character == '\t' || character == '\n' || character == '\u000B'
+                || character == '\f' || character == '\r';
+    }
+
     /**
      * Validates the usage of commas in a parameter list.
      *